@@ -48,24 +48,429 @@
  *   the fully qualified processor class name.
  *
  * Example
- * - The example below only illustrates the implementation of an Annotation Processor. Execution details and advanced
- *   setup are omitted, as the guide aims to provide a simple demonstration rather than an in-depth exploration.
+ * - The example below implements a processor for constructors annotated with any annotation named "Inject". For every
+ *   package it generates a "GeneratedServiceRegistry" class that lists the services in dependency order, with their
+ *   constructor parameter types, the constant of their "@Scope" annotation if any, and a factory calling "new"
+ *   directly. "ServiceGraph.defineAll" in "_09_examples/DependencyInjection.java" feeds it to the container, which
+ *   then starts without scanning or reflecting over constructors; this also suits jlink images and native images,
+ *   where reflection must be configured ahead of time.
+ * - Dependency cycles, several @Inject constructors in one class, private constructors or classes (including private
+ *   enclosing classes), parameterized dependencies and abstract or inner (non-static) services are reported as
+ *   compilation errors, so mistakes surface at build time instead of at startup.
+ * - Services in the unnamed package (e.g. the ones of compact source files) are skipped, as generated code cannot
+ *   refer to them.
+ * - The benchmark compiles a generated set of services with the processor and measures the cold start of fresh JVMs
+ *   wiring them with plain reflection and through ServiceProvider with the generated registry. It compiles the
+ *   container from "src/_09_examples/DependencyInjection.java", so it must be run from the repository root.
  */
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
-@SupportedAnnotationTypes("com.example.MyAnnotation")
+@SupportedAnnotationTypes("*")
 @SupportedSourceVersion(SourceVersion.RELEASE_25)
 public static class MyProcessor extends AbstractProcessor {
+    private static final String ANNOTATION_NAME = "Inject";
+    private static final String SCOPE_NAME = "Scope";
+    private static final String REGISTRY_NAME = "GeneratedServiceRegistry";
+    private static final int CHUNK_SIZE = 256; // Services per generated method, far below the 64 KiB bytecode limit
+
+    private Set<String> generatedPackages = new HashSet<>();
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        // Code Generation here.
-        return true;
+        Map<TypeElement, List<ExecutableElement>> constructorsByType = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            if (!annotation.getSimpleName().contentEquals(ANNOTATION_NAME)) {
+                continue;
+            }
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                constructorsByType.computeIfAbsent((TypeElement) constructor.getEnclosingElement(), x -> new ArrayList<>()).add(constructor);
+            }
+        }
+        Map<String, List<InjectService>> servicesByPackage = new TreeMap<>();
+        constructorsByType.forEach((type, constructors) -> {
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            if (packageName.isEmpty()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Skipped service in the unnamed package", type);
+            } else if (constructors.size() > 1) {
+                constructors.forEach(x -> processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Only one @Inject constructor is allowed per service", x));
+            } else if (isValid(type, constructors.getFirst())) {
+                servicesByPackage.computeIfAbsent(packageName, x -> new ArrayList<>()).add(toService(type, constructors.getFirst()));
+            }
+        });
+        servicesByPackage.forEach((packageName, services) -> {
+            List<InjectService> order = sort(services);
+            if (order != null && generatedPackages.add(packageName)) {
+                writeRegistry(packageName, order);
+            }
+        });
+        return false; // Other processors may handle the same annotations
+    }
+
+    private boolean isValid(TypeElement type, ExecutableElement constructor) {
+        String error = null;
+        if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            error = "@Inject constructor must not be private";
+        } else if (isPrivate(type)) {
+            error = "@Inject service and its enclosing classes must not be private";
+        } else if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error = "@Inject service must not be abstract";
+        } else if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            error = "@Inject service must not be an inner class";
+        } else if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error = "@Inject service must be a top-level or static nested class";
+        }
+        for (VariableElement parameter : constructor.getParameters()) {
+            if (error == null && parameter.asType().getKind() != TypeKind.DECLARED) {
+                error = "@Inject parameter must be a class or interface: " + parameter.getSimpleName();
+            } else if (error == null && !((DeclaredType) parameter.asType()).getTypeArguments().isEmpty()) {
+                // Services are keyed by class, so List<String> and List<Integer> could not be told apart
+                error = "@Inject parameter must not be parameterized: " + parameter.getSimpleName();
+            }
+        }
+        if (error != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, error, constructor);
+        }
+        return error == null;
+    }
+
+    // The generated registry names the type, so neither it nor any class around it may be private
+    private boolean isPrivate(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InjectService toService(TypeElement type, ExecutableElement constructor) {
+        List<String> dependencies = new ArrayList<>();
+        for (VariableElement parameter : constructor.getParameters()) {
+            TypeElement dependency = (TypeElement) processingEnv.getTypeUtils().asElement(parameter.asType());
+            dependencies.add(dependency.getQualifiedName().toString());
+        }
+        return new InjectService(type.getQualifiedName().toString(), dependencies, getScope(type), !constructor.getThrownTypes().isEmpty(), type);
+    }
+
+    // The constant of an annotation named "Scope" on the service, e.g. "THREAD", or null to leave it to the container
+    private String getScope(TypeElement type) {
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().asElement().getSimpleName().contentEquals(SCOPE_NAME)) {
+                continue;
+            }
+            for (AnnotationValue value : annotation.getElementValues().values()) {
+                if (value.getValue() instanceof VariableElement constant) {
+                    return constant.getSimpleName().toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    // Depth-first post-order, so the registry lists every service after the services it takes; a cycle is an error
+    private List<InjectService> sort(List<InjectService> services) {
+        Map<String, InjectService> byName = new LinkedHashMap<>();
+        services.forEach(x -> byName.put(x.name(), x));
+        List<InjectService> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Set<String> inProgress = new LinkedHashSet<>();
+        Deque<InjectService> stack = new ArrayDeque<>();
+        Deque<Integer> positions = new ArrayDeque<>();
+        for (InjectService root : byName.values()) {
+            if (!visited.add(root.name())) {
+                continue;
+            }
+            stack.push(root);
+            positions.push(0);
+            inProgress.add(root.name());
+            while (!stack.isEmpty()) {
+                InjectService service = stack.peek();
+                int position = positions.pop();
+                if (position == service.dependencies().size()) {
+                    stack.pop();
+                    inProgress.remove(service.name());
+                    order.add(service);
+                    continue;
+                }
+                positions.push(position + 1);
+                InjectService dependency = byName.get(service.dependencies().get(position));
+                if (dependency == null) {
+                    continue; // Provided by another package or registered by hand
+                }
+                if (inProgress.contains(dependency.name())) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Dependency cycle detected: " + String.join(" -> ", inProgress) + " -> " + dependency.name(), service.element());
+                    return null;
+                }
+                if (visited.add(dependency.name())) {
+                    stack.push(dependency);
+                    positions.push(0);
+                    inProgress.add(dependency.name());
+                }
+            }
+        }
+        return order;
+    }
+
+    private void writeRegistry(String packageName, List<InjectService> services) {
+        String name = packageName + "." + REGISTRY_NAME;
+        Element[] originatingElements = services.stream().map(InjectService::element).toArray(Element[]::new);
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, originatingElements).openWriter())) {
+            int chunks = (services.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("@javax.annotation.processing.Generated(\"" + MyProcessor.class.getCanonicalName() + "\")");
+            out.println("public final class " + REGISTRY_NAME + " {");
+            out.println("    private static final java.util.List<Class<?>> SERVICES = new java.util.ArrayList<>(" + services.size() + ");");
+            out.println("    private static final java.util.Map<Class<?>, Integer> INDICES = new java.util.HashMap<>(" + (services.size() * 2) + ");");
+            out.println("    private static final Class<?>[][] DEPENDENCIES = new Class<?>[" + services.size() + "][];");
+            out.println("    private static final String[] SCOPES = new String[" + services.size() + "];");
+            out.println();
+            out.println("    static {");
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                out.println("        register" + chunk + "();");
+            }
+            out.println("    }");
+            out.println();
+            out.println("    private " + REGISTRY_NAME + "() {}");
+            out.println();
+            out.println("    // Services in dependency order: each one comes after the services its constructor takes");
+            out.println("    public static java.util.List<Class<?>> getServices() {");
+            out.println("        return java.util.Collections.unmodifiableList(SERVICES);");
+            out.println("    }");
+            out.println();
+            out.println("    public static Class<?>[] getDependencies(Class<?> type) {");
+            out.println("        return DEPENDENCIES[indexOf(type)].clone();");
+            out.println("    }");
+            out.println();
+            out.println("    // The constant of the service's @Scope annotation, e.g. \"THREAD\", or null when it has none");
+            out.println("    public static String getScope(Class<?> type) {");
+            out.println("        return SCOPES[indexOf(type)];");
+            out.println("    }");
+            out.println();
+            out.println("    public static Object create(Class<?> type, Object[] arguments) {");
+            out.println("        int index = indexOf(type);");
+            out.println("        return switch (index / " + CHUNK_SIZE + ") {");
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                out.println("            case " + chunk + " -> create" + chunk + "(index, arguments);");
+            }
+            out.println("            default -> throw new IllegalArgumentException(\"Invalid service: \" + type);");
+            out.println("        };");
+            out.println("    }");
+            out.println();
+            out.println("    private static int indexOf(Class<?> type) {");
+            out.println("        Integer index = INDICES.get(type);");
+            out.println("        if (index == null) {");
+            out.println("            throw new IllegalArgumentException(\"Invalid service: \" + type);");
+            out.println("        }");
+            out.println("        return index;");
+            out.println("    }");
+            out.println();
+            out.println("    private static void register(Class<?> type, String scope, Class<?>... dependencies) {");
+            out.println("        INDICES.put(type, SERVICES.size());");
+            out.println("        DEPENDENCIES[SERVICES.size()] = dependencies;");
+            out.println("        SCOPES[SERVICES.size()] = scope;");
+            out.println("        SERVICES.add(type);");
+            out.println("    }");
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                List<InjectService> chunkServices = services.subList(chunk * CHUNK_SIZE, Math.min((chunk + 1) * CHUNK_SIZE, services.size()));
+                out.println();
+                out.println("    private static void register" + chunk + "() {");
+                for (InjectService service : chunkServices) {
+                    StringJoiner dependencies = new StringJoiner(", ", ", ", "").setEmptyValue("");
+                    service.dependencies().forEach(x -> dependencies.add(x + ".class"));
+                    String scope = service.scope() == null ? "null" : "\"" + service.scope() + "\"";
+                    out.println("        register(" + service.name() + ".class, " + scope + dependencies + ");");
+                }
+                out.println("    }");
+                out.println();
+                out.println("    private static Object create" + chunk + "(int index, Object[] arguments) {");
+                out.println("        return switch (index) {");
+                for (int i = 0; i < chunkServices.size(); i++) {
+                    InjectService service = chunkServices.get(i);
+                    StringJoiner arguments = new StringJoiner(", ");
+                    for (int j = 0; j < service.dependencies().size(); j++) {
+                        arguments.add("(" + service.dependencies().get(j) + ") arguments[" + j + "]");
+                    }
+                    String creation = "new " + service.name() + "(" + arguments + ")";
+                    if (!service.declaresExceptions()) {
+                        out.println("            case " + (chunk * CHUNK_SIZE + i) + " -> " + creation + ";");
+                        continue;
+                    }
+                    // Checked exceptions are wrapped, as when the constructor is invoked through reflection
+                    out.println("            case " + (chunk * CHUNK_SIZE + i) + " -> {");
+                    out.println("                try {");
+                    out.println("                    yield " + creation + ";");
+                    out.println("                } catch (RuntimeException e) {");
+                    out.println("                    throw e;");
+                    out.println("                } catch (Exception e) {");
+                    out.println("                    throw new RuntimeException(e);");
+                    out.println("                }");
+                    out.println("            }");
+                }
+                out.println("            default -> throw new IllegalArgumentException(\"Invalid service index: \" + index);");
+                out.println("        };");
+                out.println("    }");
+            }
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + name + ": " + e.getMessage());
+        }
     }
 }
 
-void main() {}
\ No newline at end of file
+// A service as seen by the compiler: canonical names only, since its classes may not be compiled yet
+public record InjectService(String name, List<String> dependencies, String scope, boolean declaresExceptions, TypeElement element) {}
+
+// Compiles generated services with MyProcessor, then starts fresh JVMs that wire them with and without the registry.
+// The container is compiled from its source next to them, so run from the repository root
+public class AnnotationProcessingBenchmark {
+    private static final String PACKAGE_NAME = "benchmark";
+    private static final String SERVICE_NAME = "Service%d";
+    private static final String REGISTRY = PACKAGE_NAME + ".GeneratedServiceRegistry";
+    private static final Path CONTAINER_SOURCE = Path.of("src", "_09_examples", "DependencyInjection.java");
+    private static final String CONTAINER_NAME = "DependencyInjection";
+
+    public void run(int quantity, int launches) {
+        try {
+            Path root = Files.createTempDirectory("annotation-processing");
+            Path sources = Files.createDirectories(root.resolve("src").resolve(PACKAGE_NAME));
+            Path classes = Files.createDirectories(root.resolve("classes"));
+            writeSources(sources, quantity);
+            long start = System.nanoTime();
+            compile(sources, classes);
+            IO.println(String.format("Compiled %d services with the processor in %.0f ms", quantity, (System.nanoTime() - start) / 1e6));
+            compileContainer(classes);
+            Map<String, List<String>> mains = new LinkedHashMap<>();
+            mains.put("Plain reflection", List.of(PACKAGE_NAME + ".ReflectiveMain"));
+            mains.put("ServiceProvider, generated registry", List.of(CONTAINER_NAME, REGISTRY));
+            for (Map.Entry<String, List<String>> main : mains.entrySet()) {
+                long[] processNanos = new long[launches];
+                long[] wiringNanos = new long[launches];
+                for (int i = 0; i < launches; i++) {
+                    start = System.nanoTime();
+                    wiringNanos[i] = launch(classes, main.getValue());
+                    processNanos[i] = System.nanoTime() - start;
+                }
+                Arrays.sort(processNanos);
+                Arrays.sort(wiringNanos);
+                IO.println(String.format("%s: median JVM run %.0f ms | median wiring %.1f ms",
+                        main.getKey(), processNanos[launches / 2] / 1e6, wiringNanos[launches / 2] / 1e6));
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeSources(Path sources, int quantity) throws IOException {
+        Files.writeString(sources.resolve("Inject.java"), """
+                package benchmark;
+
+                @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+                @java.lang.annotation.Target(java.lang.annotation.ElementType.CONSTRUCTOR)
+                public @interface Inject {}
+                """);
+        for (int i = 0; i < quantity; i++) {
+            // Links to (i - 1) / 2 and (i - 1) / 3 give a wide DAG only about log2(n) levels deep
+            Set<Integer> dependencies = i == 0 ? Set.of() : new TreeSet<>(List.of((i - 1) / 2, (i - 1) / 3));
+            StringJoiner parameters = new StringJoiner(", ");
+            dependencies.forEach(x -> parameters.add(String.format(SERVICE_NAME, x) + " dependency" + x));
+            String name = String.format(SERVICE_NAME, i);
+            Files.writeString(sources.resolve(name + ".java"), String.format("""
+                    package benchmark;
+
+                    public class %s {
+                        @Inject
+                        public %s(%s) {}
+                    }
+                    """, name, name, parameters));
+        }
+        Files.writeString(sources.resolve("ReflectiveMain.java"), String.format("""
+                package benchmark;
+
+                public class ReflectiveMain {
+                    public static void main(String[] args) throws Exception {
+                        long start = System.nanoTime();
+                        java.util.Map<Class<?>, Object> services = new java.util.HashMap<>();
+                        for (int i = 0; i < %d; i++) {
+                            Class<?> type = Class.forName("benchmark.Service" + i);
+                            java.lang.reflect.Constructor<?> constructor = java.util.Arrays.stream(type.getDeclaredConstructors())
+                                    .filter(x -> x.isAnnotationPresent(Inject.class))
+                                    .findFirst()
+                                    .orElseThrow();
+                            Object[] arguments = java.util.Arrays.stream(constructor.getParameterTypes()).map(services::get).toArray();
+                            services.put(type, constructor.newInstance(arguments));
+                        }
+                        System.out.println(System.nanoTime() - start);
+                    }
+                }
+                """, quantity));
+    }
+
+    private void compile(Path sources, Path classes) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+             Stream<Path> files = Files.list(sources)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    List.of("-d", classes.toString(), "-s", classes.toString()), null,
+                    fileManager.getJavaFileObjectsFromPaths(files.toList()));
+            task.setProcessors(List.of(new MyProcessor()));
+            if (!task.call()) {
+                throw new RuntimeException("Benchmark sources did not compile");
+            }
+        }
+    }
+
+    // Its main wires a registry through ServiceProvider when given the registry's name
+    private void compileContainer(Path classes) throws IOException {
+        if (!Files.exists(CONTAINER_SOURCE)) {
+            throw new RuntimeException("Container source not found: " + CONTAINER_SOURCE.toAbsolutePath());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    List.of("-d", classes.toString(), "-proc:none"), null,
+                    fileManager.getJavaFileObjectsFromPaths(List.of(CONTAINER_SOURCE)));
+            if (!task.call()) {
+                throw new RuntimeException("Container source did not compile");
+            }
+        }
+    }
+
+    // Runs a main class in a new JVM and returns the wiring time it reports
+    private long launch(Path classes, List<String> mainAndArguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java"), "-cp", classes.toString()));
+        command.addAll(mainAndArguments);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes()).trim();
+        if (process.waitFor() != 0) {
+            throw new RuntimeException("Benchmark run failed: " + output);
+        }
+        return Long.parseLong(output);
+    }
+}
+
+void main() {
+    new AnnotationProcessingBenchmark().run(5_000, 5);
+}
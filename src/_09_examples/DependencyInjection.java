@@ -1,42 +1,258 @@
 public class ServiceProvider {
-    private static final String CONSTRUCTOR_NOT_DECLARED = "A constructor with @Inject must be set in service: '%s'";
+    private Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+    private Map<Class<?>, FutureTask<Object>> pending = new ConcurrentHashMap<>();
+    private ThreadLocal<Map<Class<?>, Object>> threadServices = ThreadLocal.withInitial(HashMap::new);
+    private Set<Class<?>> registered = ConcurrentHashMap.newKeySet();
+    private Set<Class<?>> resolved = ConcurrentHashMap.newKeySet();
+    private ServiceGraph graph;
 
-    private Map<Class<?>, Object> services = new ConcurrentHashMap();
+    public ServiceProvider() {
+        this(new ServiceGraph());
+    }
 
+    // Providers sharing a graph reuse its compiled definitions, so only the first one pays for the scan
+    public ServiceProvider(ServiceGraph graph) {
+        this.graph = Objects.requireNonNull(graph);
+    }
+
+    // Unregistered types are resolved on demand, together with everything they depend on
     public <T> T get(Class<T> clazz) {
         Objects.requireNonNull(clazz);
         Object instance = services.get(clazz);
-        if (instance == null) {
-            throw new RuntimeException("Service '" + clazz.getSimpleName() + "' not registered");
+        if (instance != null) {
+            return clazz.cast(instance);
+        }
+        // Prototype and thread services come back here on every request: once their graph has been checked and its
+        // singletons built, they go straight to provide
+        if (resolved.contains(clazz)) {
+            return clazz.cast(provide(graph.getDefinition(clazz)));
         }
-        return (T) instance;
+        // Missing singletons are built dependencies first, so creating a deep graph never recurses through it
+        for (ServiceDefinition definition : graph.resolve(List.of(clazz), services::containsKey)) {
+            if (definition.scope() == ServiceScope.SINGLETON) {
+                provide(definition);
+            }
+        }
+        resolved.add(clazz);
+        return clazz.cast(provide(graph.getDefinition(clazz)));
     }
 
     public void register(Class<?> clazz) {
         Objects.requireNonNull(clazz);
-        if (!services.containsKey(clazz)) {
-            Object instance = createInstance(clazz);
-            services.put(clazz, instance);
+        registerAll(List.of(clazz));
+    }
+
+    // Registration only validates and compiles the graph; instances are created on first use or by warmUp
+    public void registerAll(Collection<Class<?>> classes) {
+        graph.resolve(classes);
+        registered.addAll(classes);
+    }
+
+    public void warmUp() {
+        warmUp(ForkJoinPool.commonPool());
+    }
+
+    // Creates every registered singleton, starting each one as soon as its dependencies exist, so independent
+    // branches of the graph are built in parallel; a direct executor (Runnable::run) builds them all on this thread
+    public void warmUp(Executor executor) {
+        Objects.requireNonNull(executor);
+        List<ServiceDefinition> order = graph.resolve(registered, services::containsKey);
+        new ServiceWarmUp(order, executor, definition -> {
+            if (definition.scope() == ServiceScope.SINGLETON) {
+                provide(definition);
+            }
+        }).run();
+    }
+
+    // Ends the current thread's scope, e.g. when a request finishes
+    public void clearThreadScope() {
+        threadServices.remove();
+    }
+
+    private Object provide(ServiceDefinition definition) {
+        return switch (definition.scope()) {
+            case SINGLETON -> {
+                Object instance = services.get(definition.type());
+                yield instance != null ? instance : publish(definition);
+            }
+            case PROTOTYPE -> createInstance(definition);
+            case THREAD -> {
+                Map<Class<?>, Object> scope = threadServices.get();
+                Object instance = scope.get(definition.type());
+                if (instance == null) {
+                    instance = createInstance(definition);
+                    scope.put(definition.type(), instance);
+                }
+                yield instance;
+            }
+        };
+    }
+
+    // Second check of the double-checked publication: the thread that claims the type builds it, racing threads
+    // wait for that single instance instead of building their own, and no lock is held while constructing
+    private Object publish(ServiceDefinition definition) {
+        FutureTask<Object> task = new FutureTask<>(() -> createInstance(definition));
+        FutureTask<Object> claimed = pending.putIfAbsent(definition.type(), task);
+        if (claimed != null) {
+            return await(definition.type(), claimed);
+        }
+        // Only the claiming thread drops the pending entry, after publishing, so an interrupted waiter cannot let a
+        // third thread claim the type while it is still being built
+        try {
+            Object instance = services.get(definition.type());
+            if (instance != null) {
+                return instance;
+            }
+            task.run();
+            return await(definition.type(), task);
+        } finally {
+            pending.remove(definition.type(), task);
         }
     }
 
-    private Object createInstance(Class<?> clazz) {
+    private Object await(Class<?> type, FutureTask<Object> task) {
         try {
-            Constructor constructor = getConstructor(clazz);
-            List<Object> arguments = new ArrayList<>();
-            for (Parameter param : constructor.getParameters()) {
-                arguments.add(this.get(param.getType())); // Recursion
+            Object instance = task.get();
+            Object existing = services.putIfAbsent(type, instance);
+            return existing != null ? existing : instance;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        }
+    }
+
+    private Object createInstance(ServiceDefinition definition) {
+        Class<?>[] dependencies = definition.dependencies();
+        Object[] arguments = new Object[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            arguments[i] = provide(graph.getDefinition(dependencies[i]));
+        }
+        return definition.factory().apply(arguments);
+    }
+}
+
+public class ServiceGraph {
+    private static final String CONSTRUCTOR_NOT_DECLARED = "A constructor with @Inject must be set in service: '%s'";
+    private static final String DEPENDENCY_CYCLE = "Dependency cycle detected: %s";
+    private static final String SCOPE_MISMATCH = "Singleton service '%s' cannot depend on %s service '%s'";
+
+    private Map<Class<?>, ServiceDefinition> definitions = new ConcurrentHashMap<>();
+    private MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    // Depth-first walk with an explicit stack, so deep chains cannot overflow; post-order is a topological order
+    public List<ServiceDefinition> resolve(Collection<Class<?>> classes) {
+        return resolve(classes, x -> false);
+    }
+
+    // Classes matching "skip" are left out together with whatever is only reachable through them. A singleton may
+    // only take singletons: it would otherwise keep the one prototype or thread instance it was built with
+    public List<ServiceDefinition> resolve(Collection<Class<?>> classes, Predicate<Class<?>> skip) {
+        List<ServiceDefinition> order = new ArrayList<>();
+        Set<Class<?>> visited = new HashSet<>();
+        Set<Class<?>> inProgress = new LinkedHashSet<>();
+        Deque<Class<?>> stack = new ArrayDeque<>();
+        Deque<Integer> positions = new ArrayDeque<>();
+        for (Class<?> root : classes) {
+            if (skip.test(root) || !visited.add(Objects.requireNonNull(root))) {
+                continue;
             }
-            IO.println("Creating new instance for: " + clazz);
-            Object instance = constructor.newInstance(arguments.toArray());
-            return instance;
-        } catch (Exception e) {
+            stack.push(root);
+            positions.push(0);
+            inProgress.add(root);
+            while (!stack.isEmpty()) {
+                Class<?> clazz = stack.peek();
+                ServiceDefinition definition = getDefinition(clazz);
+                int position = positions.pop();
+                if (position == definition.dependencies().length) {
+                    stack.pop();
+                    inProgress.remove(clazz);
+                    order.add(definition);
+                    continue;
+                }
+                positions.push(position + 1);
+                Class<?> dependency = definition.dependencies()[position];
+                ServiceScope dependencyScope = getDefinition(dependency).scope();
+                if (definition.scope() == ServiceScope.SINGLETON && dependencyScope != ServiceScope.SINGLETON) {
+                    throw new RuntimeException(String.format(SCOPE_MISMATCH, clazz.getSimpleName(), dependencyScope, dependency.getSimpleName()));
+                }
+                if (inProgress.contains(dependency)) {
+                    throw new RuntimeException(String.format(DEPENDENCY_CYCLE, describeCycle(inProgress, dependency)));
+                }
+                if (!skip.test(dependency) && visited.add(dependency)) {
+                    stack.push(dependency);
+                    positions.push(0);
+                    inProgress.add(dependency);
+                }
+            }
+        }
+        return order;
+    }
+
+    public ServiceDefinition getDefinition(Class<?> clazz) {
+        return definitions.computeIfAbsent(clazz, this::compile);
+    }
+
+    // Adds a service whose wiring is already known, e.g. from the registry generated by the annotation processor in
+    // "_04_language/_21_annotations/_03_AnnotationCompileProcessing.java", so its constructor is never reflected on
+    public void define(Class<?> type, Class<?>[] dependencies, Function<Object[], Object> factory, ServiceScope scope) {
+        Objects.requireNonNull(type);
+        definitions.put(type, new ServiceDefinition(type, dependencies.clone(), Objects.requireNonNull(factory), Objects.requireNonNull(scope)));
+    }
+
+    // Defines every service of a registry generated by the annotation processor, whose static methods are looked up
+    // once; the registry names the @Scope constant of each service and null stands for the default singleton
+    @SuppressWarnings("unchecked")
+    public List<Class<?>> defineAll(Class<?> registry) {
+        try {
+            MethodHandles.Lookup registryLookup = MethodHandles.publicLookup();
+            MethodHandle services = registryLookup.findStatic(registry, "getServices", MethodType.methodType(List.class));
+            MethodHandle dependencies = registryLookup.findStatic(registry, "getDependencies", MethodType.methodType(Class[].class, Class.class));
+            MethodHandle scopes = registryLookup.findStatic(registry, "getScope", MethodType.methodType(String.class, Class.class));
+            MethodHandle create = registryLookup.findStatic(registry, "create", MethodType.methodType(Object.class, Class.class, Object[].class));
+            List<Class<?>> types = (List<Class<?>>) services.invokeExact();
+            for (Class<?> type : types) {
+                MethodHandle handle = MethodHandles.insertArguments(create, 0, type);
+                Function<Object[], Object> factory = arguments -> {
+                    try {
+                        return handle.invokeExact(arguments);
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+                };
+                String scope = (String) scopes.invokeExact(type);
+                define(type, (Class<?>[]) dependencies.invokeExact(type), factory, scope == null ? ServiceScope.SINGLETON : ServiceScope.valueOf(scope));
+            }
+            return types;
+        } catch (Throwable e) {
+            throw e instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e);
+        }
+    }
+
+    // The constructor is looked up once and turned into an (Object[]) -> Object handle, so creation is reflection-free
+    private ServiceDefinition compile(Class<?> clazz) {
+        Constructor<?> constructor = getConstructor(clazz);
+        try {
+            MethodHandle handle = lookup.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            Function<Object[], Object> factory = arguments -> {
+                try {
+                    return handle.invokeExact(arguments);
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            Scope scope = clazz.getAnnotation(Scope.class);
+            return new ServiceDefinition(clazz, constructor.getParameterTypes(), factory, scope == null ? ServiceScope.SINGLETON : scope.value());
+        } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private Constructor getConstructor(Class<?> clazz) {
-        Constructor[] constructors = clazz.getDeclaredConstructors();
+    private Constructor<?> getConstructor(Class<?> clazz) {
+        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
         return Arrays.stream(constructors)
                 .filter(x -> x.isAnnotationPresent(Inject.class))
                 .findFirst()
@@ -46,12 +262,120 @@ public class ServiceProvider {
                 )
                 .orElseThrow(() -> new RuntimeException(String.format(CONSTRUCTOR_NOT_DECLARED, clazz)));
     }
+
+    private String describeCycle(Set<Class<?>> inProgress, Class<?> dependency) {
+        List<String> names = new ArrayList<>();
+        boolean inCycle = false;
+        for (Class<?> clazz : inProgress) {
+            inCycle |= clazz == dependency;
+            if (inCycle) {
+                names.add(clazz.getSimpleName());
+            }
+        }
+        names.add(dependency.getSimpleName());
+        return String.join(" -> ", names);
+    }
+}
+
+// Kahn's algorithm over the resolved services: a counter of unfinished dependencies per service, decremented as
+// each one completes; the finishing thread continues with one newly ready service and submits the others
+public class ServiceWarmUp {
+    private List<ServiceDefinition> order;
+    private Executor executor;
+    private Consumer<ServiceDefinition> initializer;
+    private AtomicIntegerArray remainingDependencies;
+    private int[][] dependents;
+    private CountDownLatch remaining;
+    private AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    public ServiceWarmUp(List<ServiceDefinition> order, Executor executor, Consumer<ServiceDefinition> initializer) {
+        this.order = order;
+        this.executor = executor;
+        this.initializer = initializer;
+        this.remainingDependencies = new AtomicIntegerArray(order.size());
+        this.remaining = new CountDownLatch(order.size());
+        Map<Class<?>, Integer> indices = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            indices.put(order.get(i).type(), i);
+        }
+        List<List<Integer>> dependentLists = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            dependentLists.add(new ArrayList<>());
+        }
+        for (int i = 0; i < order.size(); i++) {
+            for (Class<?> dependency : new HashSet<>(List.of(order.get(i).dependencies()))) {
+                Integer index = indices.get(dependency);
+                if (index != null) {
+                    dependentLists.get(index).add(i);
+                    remainingDependencies.incrementAndGet(i);
+                }
+            }
+        }
+        this.dependents = dependentLists.stream()
+                .map(x -> x.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    public void run() {
+        // Roots are collected before any of them starts, as running tasks bring other counters down to zero too
+        int[] roots = IntStream.range(0, order.size()).filter(x -> remainingDependencies.get(x) == 0).toArray();
+        for (int root : roots) {
+            executor.execute(() -> initialize(root));
+        }
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void initialize(int index) {
+        while (index >= 0) {
+            try {
+                if (failure.get() == null) {
+                    initializer.accept(order.get(index));
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            int next = -1;
+            for (int dependent : dependents[index]) {
+                if (remainingDependencies.decrementAndGet(dependent) == 0) {
+                    if (next < 0) {
+                        next = dependent;
+                    } else {
+                        executor.execute(() -> initialize(dependent));
+                    }
+                }
+            }
+            remaining.countDown();
+            index = next;
+        }
+    }
+}
+
+public record ServiceDefinition(Class<?> type, Class<?>[] dependencies, Function<Object[], Object> factory, ServiceScope scope) {}
+
+public enum ServiceScope {
+    SINGLETON, // One instance per provider, created on first use
+    PROTOTYPE, // A new instance for every injection point and every get
+    THREAD // One instance per thread until clearThreadScope, e.g. per request
 }
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.CONSTRUCTOR)
 public @interface Inject {}
 
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Scope {
+    ServiceScope value();
+}
+
 public static class DataBase {
     @Inject
     public DataBase() {}
@@ -92,13 +416,165 @@ public static class UserService {
     public UserService() {}
 }
 
-void main() {
+@Scope(ServiceScope.THREAD)
+public static class RequestContext {
+    @Inject
+    public RequestContext() {}
+}
+
+// The provider as it was before the graph was compiled: a constructor lookup and reflective call per registration
+public class ReflectiveServiceProvider {
+    private static final String CONSTRUCTOR_NOT_DECLARED = "A constructor with @Inject must be set in service: '%s'";
+
+    private Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+
+    public <T> T get(Class<T> clazz) {
+        Objects.requireNonNull(clazz);
+        Object instance = services.get(clazz);
+        if (instance == null) {
+            throw new RuntimeException("Service '" + clazz.getSimpleName() + "' not registered");
+        }
+        return clazz.cast(instance);
+    }
+
+    public void register(Class<?> clazz) {
+        Objects.requireNonNull(clazz);
+        if (!services.containsKey(clazz)) {
+            Object instance = createInstance(clazz);
+            services.put(clazz, instance);
+        }
+    }
+
+    private Object createInstance(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = getConstructor(clazz);
+            List<Object> arguments = new ArrayList<>();
+            for (Parameter param : constructor.getParameters()) {
+                arguments.add(this.get(param.getType())); // Recursion
+            }
+            return constructor.newInstance(arguments.toArray());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Constructor<?> getConstructor(Class<?> clazz) {
+        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+        return Arrays.stream(constructors)
+                .filter(x -> x.isAnnotationPresent(Inject.class))
+                .findFirst()
+                .or(() -> Arrays.stream(constructors)
+                        .filter(x -> x.getParameterCount() == 1)
+                        .findFirst()
+                )
+                .orElseThrow(() -> new RuntimeException(String.format(CONSTRUCTOR_NOT_DECLARED, clazz)));
+    }
+}
+
+// Defines public classes whose only @Inject constructor takes earlier services, so large graphs can be measured
+public class ServiceClassGenerator {
+    private static final String NAME = "GeneratedService%d";
+
+    public List<Class<?>> generate(int quantity) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        ClassDesc inject = Inject.class.describeConstable().orElseThrow();
+        List<Class<?>> classes = new ArrayList<>();
+        for (int i = 0; i < quantity; i++) {
+            ClassDesc[] parameters = Arrays.stream(getDependencies(i))
+                    .mapToObj(x -> ClassDesc.of(String.format(NAME, x)))
+                    .toArray(ClassDesc[]::new);
+            byte[] bytes = ClassFile.of().build(ClassDesc.of(String.format(NAME, i)), builder -> builder
+                    .withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL)
+                    .withSuperclass(ConstantDescs.CD_Object)
+                    .withMethod(ConstantDescs.INIT_NAME, MethodTypeDesc.of(ConstantDescs.CD_void, parameters), ClassFile.ACC_PUBLIC, method -> method
+                            .with(RuntimeVisibleAnnotationsAttribute.of(java.lang.classfile.Annotation.of(inject)))
+                            .withCode(code -> code
+                                    .aload(0)
+                                    .invokespecial(ConstantDescs.CD_Object, ConstantDescs.INIT_NAME, ConstantDescs.MTD_void)
+                                    .return_())));
+            try {
+                classes.add(lookup.defineClass(bytes));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return classes;
+    }
+
+    // Links to (i - 1) / 2 and (i - 1) / 3 give a wide DAG only about log2(n) levels deep
+    private int[] getDependencies(int index) {
+        if (index == 0) {
+            return new int[0];
+        }
+        int first = (index - 1) / 2;
+        int second = (index - 1) / 3;
+        return first == second ? new int[] {first} : new int[] {first, second};
+    }
+}
+
+public class ServiceProviderBenchmark {
+    private static final int ROUNDS = 5;
+
+    public void run(int quantity) {
+        List<Class<?>> classes = new ServiceClassGenerator().generate(quantity);
+        Class<?> last = classes.getLast();
+        for (int round = 1; round <= ROUNDS; round++) {
+            ServiceGraph graph = new ServiceGraph();
+            long start = System.nanoTime();
+            ReflectiveServiceProvider reflectiveProvider = new ReflectiveServiceProvider();
+            for (Class<?> clazz : classes) {
+                reflectiveProvider.register(clazz);
+            }
+            Objects.requireNonNull(reflectiveProvider.get(last));
+            long reflectiveNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            graph.resolve(classes);
+            long scanNanos = System.nanoTime() - start;
+
+            long serialNanos;
+            try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+                serialNanos = time(graph, classes, provider -> provider.warmUp(executor));
+            }
+            long parallelNanos = time(graph, classes, ServiceProvider::warmUp);
+            long lazyNanos = time(graph, classes, provider -> provider.get(last));
+
+            IO.println(String.format("Round %d (%d services): reflective %.1f ms | graph scan %.1f ms | serial warm-up %.1f ms | parallel warm-up %.1f ms | lazy get %.2f ms",
+                    round, quantity, reflectiveNanos / 1e6, scanNanos / 1e6, serialNanos / 1e6, parallelNanos / 1e6, lazyNanos / 1e6));
+        }
+    }
+
+    private long time(ServiceGraph graph, List<Class<?>> classes, Consumer<ServiceProvider> startup) {
+        long start = System.nanoTime();
+        ServiceProvider provider = new ServiceProvider(graph);
+        provider.registerAll(classes);
+        startup.accept(provider);
+        return System.nanoTime() - start;
+    }
+}
+
+// Given the name of a registry generated by the annotation processor, wires its services through the provider and
+// prints the nanoseconds taken (see the benchmark of "_04_language/_21_annotations/_03_AnnotationCompileProcessing.java")
+void main(String[] args) throws ClassNotFoundException {
+    if (args.length > 0) {
+        long start = System.nanoTime();
+        ServiceGraph graph = new ServiceGraph();
+        ServiceProvider registryProvider = new ServiceProvider(graph);
+        registryProvider.registerAll(graph.defineAll(Class.forName(args[0])));
+        registryProvider.warmUp();
+        IO.println(System.nanoTime() - start);
+        return;
+    }
+
     ServiceProvider provider = new ServiceProvider();
 
     provider.register(DataBase.class);
     provider.register(UserRepository.class);
     provider.register(MetricsRepository.class);
-    provider.register(UserService.class);
+    provider.warmUp();
+
+    UserService userService = provider.get(UserService.class); // Resolved without registering
+    RequestContext requestContext = provider.get(RequestContext.class); // One per thread
 
-    UserService userService = provider.get(UserService.class);
+    new ServiceProviderBenchmark().run(10_000);
 }
\ No newline at end of file
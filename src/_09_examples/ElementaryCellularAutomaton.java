@@ -1,12 +1,23 @@
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 void main() {
+    if (GraphicsEnvironment.isHeadless()) {
+        new ElementaryCellularAutomatonBenchmark().run();
+        ElementaryCellularAutomatonRandomBenchmark randomBenchmark = new ElementaryCellularAutomatonRandomBenchmark();
+        randomBenchmark.runSmokeTest();
+        randomBenchmark.run();
+        ElementaryCellularAutomatonBatchRenderer batchRenderer = new ElementaryCellularAutomatonBatchRenderer(400, 800, Path.of("eca-rules"));
+        batchRenderer.renderRules(0, 256);
+        return;
+    }
     SwingUtilities.invokeLater(() -> {
-        ElementaryCellularAutomaton elementaryCellularAutomaton = new ElementaryCellularAutomaton(250, 400);
-        elementaryCellularAutomaton.setCell(0, elementaryCellularAutomaton.getColumns() / 2, true);
-        elementaryCellularAutomaton.process(ElementaryCellularAutomatonRule.of(30));
-        ElementaryCellularAutomatonFrame elementaryCellularAutomatonFrame = new ElementaryCellularAutomatonFrame(elementaryCellularAutomaton);
+        ElementaryCellularAutomatonGenerator generator = new ElementaryCellularAutomatonGenerator(400, ElementaryCellularAutomatonRule.of(30));
+        generator.setCell(generator.getColumns() / 2, true);
+        ElementaryCellularAutomatonFrame elementaryCellularAutomatonFrame = new ElementaryCellularAutomatonFrame(generator, 250);
     });
 }
 
@@ -16,33 +27,31 @@ public class ElementaryCellularAutomaton {
 
     private int rows;
     private int columns;
-    private boolean[][] grid;
+    private ElementaryCellularAutomatonEngine engine;
 
     public ElementaryCellularAutomaton(int rows, int columns) {
+        this(rows, columns, ElementaryCellularAutomatonEngineType.ARRAY);
+    }
+
+    public ElementaryCellularAutomaton(int rows, int columns, ElementaryCellularAutomatonEngineType engineType) {
         Objects.checkIndex(rows, MAX_ROWS + 1);
         Objects.checkIndex(columns, MAX_COLUMNS + 1);
+        Objects.requireNonNull(engineType);
         this.rows = rows;
         this.columns = columns;
-        this.grid = new boolean[rows][columns];
+        this.engine = switch (engineType) {
+            case ARRAY -> new ElementaryCellularAutomatonArrayEngine(rows, columns);
+            case BIT_PACKED -> new ElementaryCellularAutomatonBitEngine(rows, columns);
+        };
     }
 
     public void process(ElementaryCellularAutomatonRule rule) {
         Objects.requireNonNull(rule);
-        for (int row = 1; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                boolean[] topPixels = this.getTopCells(row, column);
-                boolean result = rule.get(topPixels[0], topPixels[1], topPixels[2]);
-                this.grid[row][column] = result;
-            }
-        }
+        this.engine.process(rule);
     }
 
     public void reset() {
-        for (int row = 0; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                this.grid[row][column] = false;
-            }
-        }
+        this.engine.reset();
     }
 
     public boolean getCell(int row, int column) {
@@ -52,13 +61,13 @@ public class ElementaryCellularAutomaton {
         if (column < 0 || column >= this.columns) {
             return false;
         }
-        return this.grid[row][column];
+        return this.engine.getCell(row, column);
     }
 
     public void setCell(int row, int column, boolean active) {
         Objects.checkIndex(row, rows);
         Objects.checkIndex(column, columns);
-        this.grid[row][column] = active;
+        this.engine.setCell(row, column, active);
     }
 
     public int getRows() {
@@ -69,76 +78,787 @@ public class ElementaryCellularAutomaton {
         return columns;
     }
 
-    private boolean[] getTopCells(int row, int column) {
-        boolean[] topPixels = new boolean[3];
-        topPixels[0] = this.getCell(row-1, column-1);
-        topPixels[1] = this.getCell(row-1, column);
-        topPixels[2] = this.getCell(row-1, column+1);
-        return topPixels;
-    }
-
     public void print() {
         for (int row = 0; row < this.rows; row++) {
             for (int column = 0; column < this.columns; column++) {
-                IO.print(this.grid[row][column] ? "*" : "_");
+                IO.print(this.engine.getCell(row, column) ? "*" : "_");
             }
             IO.println();
         }
     }
 }
 
+public interface ElementaryCellularAutomatonEngine {
+    boolean getCell(int row, int column);
+
+    void setCell(int row, int column, boolean active);
+
+    void reset();
+
+    void process(ElementaryCellularAutomatonRule rule);
+}
+
+public enum ElementaryCellularAutomatonEngineType {
+    ARRAY,
+    BIT_PACKED
+}
+
+public class ElementaryCellularAutomatonArrayEngine implements ElementaryCellularAutomatonEngine {
+    private int rows;
+    private int columns;
+    private boolean[][] grid;
+
+    public ElementaryCellularAutomatonArrayEngine(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.grid = new boolean[rows][columns];
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        return this.grid[row][column];
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean active) {
+        this.grid[row][column] = active;
+    }
+
+    @Override
+    public void reset() {
+        for (int row = 0; row < this.rows; row++) {
+            Arrays.fill(this.grid[row], false);
+        }
+    }
+
+    @Override
+    public void process(ElementaryCellularAutomatonRule rule) {
+        for (int row = 1; row < this.rows; row++) {
+            boolean[] top = this.grid[row - 1];
+            for (int column = 0; column < this.columns; column++) {
+                boolean left = column > 0 && top[column - 1];
+                boolean right = column < this.columns - 1 && top[column + 1];
+                this.grid[row][column] = rule.get(left, top[column], right);
+            }
+        }
+    }
+}
+
+public class ElementaryCellularAutomatonBitEngine implements ElementaryCellularAutomatonEngine {
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = WORD_BITS - 1;
+
+    private int rows;
+    private int words;
+    private long lastWordMask;
+    private long[] grid;
+
+    public ElementaryCellularAutomatonBitEngine(int rows, int columns) {
+        this.rows = rows;
+        this.words = (columns + WORD_MASK) >>> WORD_SHIFT;
+        this.lastWordMask = (columns & WORD_MASK) == 0 ? -1L : (1L << (columns & WORD_MASK)) - 1;
+        this.grid = new long[rows * this.words];
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        long word = this.grid[row * this.words + (column >>> WORD_SHIFT)];
+        return ((word >>> (column & WORD_MASK)) & 1L) != 0;
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean active) {
+        int index = row * this.words + (column >>> WORD_SHIFT);
+        long bit = 1L << (column & WORD_MASK);
+        this.grid[index] = active ? this.grid[index] | bit : this.grid[index] & ~bit;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(this.grid, 0L);
+    }
+
+    @Override
+    public void process(ElementaryCellularAutomatonRule rule) {
+        for (int row = 1; row < this.rows; row++) {
+            rule.nextRow(this.grid, (row - 1) * this.words, this.grid, row * this.words, this.words, this.lastWordMask);
+        }
+    }
+}
+
 public static class ElementaryCellularAutomatonRule {
-    private Map<String, Boolean> map = new HashMap<>();
+    private static final int NEIGHBORHOODS = 8;
+    private static final int LAST_BIT = Long.SIZE - 1;
 
-    private ElementaryCellularAutomatonRule(int rule) {
-        Objects.checkIndex(rule, 256);
-        this.map = this.buildMap(toBinaryString(rule));
+    private int number;
+
+    private ElementaryCellularAutomatonRule(int number) {
+        Objects.checkIndex(number, 256);
+        this.number = number;
     }
 
-    public static ElementaryCellularAutomatonRule of(int rule) {
-        return new ElementaryCellularAutomatonRule(rule);
+    public static ElementaryCellularAutomatonRule of(int number) {
+        return new ElementaryCellularAutomatonRule(number);
     }
 
+    // Bit n of the rule number is the next state of the neighbourhood whose cells spell n in binary
     public boolean get(boolean left, boolean middle, boolean right) {
-        String key = toBinaryDigit(left) + toBinaryDigit(middle) + toBinaryDigit(right);
-        return this.map.get(key);
+        int neighborhood = (left ? 4 : 0) | (middle ? 2 : 0) | (right ? 1 : 0);
+        return ((this.number >>> neighborhood) & 1) != 0;
+    }
+
+    // Same truth table applied to 64 cells at once: the OR of every neighbourhood the rule maps to 1
+    public long nextWord(long left, long middle, long right) {
+        long result = 0L;
+        for (int neighborhood = 0; neighborhood < NEIGHBORHOODS; neighborhood++) {
+            if (((this.number >>> neighborhood) & 1) != 0) {
+                result |= ((neighborhood & 4) != 0 ? left : ~left)
+                        & ((neighborhood & 2) != 0 ? middle : ~middle)
+                        & ((neighborhood & 1) != 0 ? right : ~right);
+            }
+        }
+        return result;
+    }
+
+    public void nextRow(long[] source, int sourceOffset, long[] target, int targetOffset, int words, long lastWordMask) {
+        for (int word = 0; word < words; word++) {
+            long middle = source[sourceOffset + word];
+            long previous = word > 0 ? source[sourceOffset + word - 1] : 0L;
+            long next = word < words - 1 ? source[sourceOffset + word + 1] : 0L;
+            // Bit i of "left" holds the cell at column i - 1, bit i of "right" the cell at column i + 1
+            long left = (middle << 1) | (previous >>> LAST_BIT);
+            long right = (middle >>> 1) | (next << LAST_BIT);
+            target[targetOffset + word] = this.nextWord(left, middle, right);
+        }
+        target[targetOffset + words - 1] &= lastWordMask;
     }
 
-    private Map<String, Boolean> buildMap(String binaryString) {
-        Map<String, Boolean> map = new HashMap<>();
-        map.put("000", binaryString.charAt(7) == '1');
-        map.put("001", binaryString.charAt(6) == '1');
-        map.put("010", binaryString.charAt(5) == '1');
-        map.put("011", binaryString.charAt(4) == '1');
-        map.put("100", binaryString.charAt(3) == '1');
-        map.put("101", binaryString.charAt(2) == '1');
-        map.put("110", binaryString.charAt(1) == '1');
-        map.put("111", binaryString.charAt(0) == '1');
-        return map;
+    public int getNumber() {
+        return number;
     }
+}
+
+public class ElementaryCellularAutomatonGenerator implements Iterator<long[]> {
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = WORD_BITS - 1;
+
+    private int columns;
+    private int words;
+    private long lastWordMask;
+    private ElementaryCellularAutomatonRule rule;
+    private long[] row;
+    private long[] buffer;
+    private long generation = 0;
 
-    private String toBinaryString(int rule) {
-        StringBuilder binaryString = new StringBuilder(Integer.toBinaryString(rule));
-        while (binaryString.length() < 8) {
-            binaryString.insert(0, 0);
+    public ElementaryCellularAutomatonGenerator(int columns, ElementaryCellularAutomatonRule rule) {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Invalid column quantity: " + columns);
         }
-        return binaryString.toString();
+        this.columns = columns;
+        this.words = (columns + WORD_MASK) >>> WORD_SHIFT;
+        this.lastWordMask = (columns & WORD_MASK) == 0 ? -1L : (1L << (columns & WORD_MASK)) - 1;
+        this.rule = Objects.requireNonNull(rule);
+        this.row = new long[this.words];
+        this.buffer = new long[this.words];
+    }
+
+    public void setCell(int column, boolean active) {
+        Objects.checkIndex(column, this.columns);
+        long bit = 1L << (column & WORD_MASK);
+        int word = column >>> WORD_SHIFT;
+        this.row[word] = active ? this.row[word] | bit : this.row[word] & ~bit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return true;
+    }
+
+    @Override
+    public long[] next() {
+        long[] next = new long[this.words];
+        this.next(next, 0);
+        return next;
+    }
+
+    // Copies the current generation into the target and advances, so callers can reuse their own storage
+    public void next(long[] target, int offset) {
+        System.arraycopy(this.row, 0, target, offset, this.words);
+        this.rule.nextRow(this.row, 0, this.buffer, 0, this.words, this.lastWordMask);
+        long[] row = this.row;
+        this.row = this.buffer;
+        this.buffer = row;
+        this.generation++;
+    }
+
+    public Stream<long[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public int getColumns() {
+        return columns;
     }
 
-    private String toBinaryDigit(boolean active) {
-        return active ? "1" : "0";
+    public int getWords() {
+        return words;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+}
+
+public class ElementaryCellularAutomatonHistory {
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = 63;
+
+    private int capacity;
+    private int words;
+    private long[] rows;
+    private int oldest = 0;
+    private int size = 0;
+
+    public ElementaryCellularAutomatonHistory(int capacity, int words) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid history capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.words = words;
+        this.rows = new long[capacity * words];
+    }
+
+    // Once full, the oldest row is overwritten in place, so memory stays at capacity * words
+    public void add(ElementaryCellularAutomatonGenerator generator) {
+        int slot;
+        if (this.size < this.capacity) {
+            slot = this.size++;
+        } else {
+            slot = this.oldest;
+            this.oldest = (this.oldest + 1) % this.capacity;
+        }
+        generator.next(this.rows, slot * this.words);
+    }
+
+    public boolean getCell(int row, int column) {
+        Objects.checkIndex(row, this.size);
+        int slot = (this.oldest + row) % this.capacity;
+        long word = this.rows[slot * this.words + (column >>> WORD_SHIFT)];
+        return ((word >>> (column & WORD_MASK)) & 1L) != 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
+
+public class ElementaryCellularAutomatonBenchmark {
+    private static final int ROWS = 999;
+    private static final int COLUMNS = 999;
+    private static final int RULES = 256;
+
+    public void run() {
+        ElementaryCellularAutomaton array = new ElementaryCellularAutomaton(ROWS, COLUMNS, ElementaryCellularAutomatonEngineType.ARRAY);
+        ElementaryCellularAutomaton bitPacked = new ElementaryCellularAutomaton(ROWS, COLUMNS, ElementaryCellularAutomatonEngineType.BIT_PACKED);
+        long arrayNanos = 0;
+        long bitPackedNanos = 0;
+        int mismatches = 0;
+        for (int rule = 0; rule < RULES; rule++) {
+            arrayNanos += time(array, ElementaryCellularAutomatonRule.of(rule));
+            bitPackedNanos += time(bitPacked, ElementaryCellularAutomatonRule.of(rule));
+            for (int row = 0; row < ROWS; row++) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    mismatches += array.getCell(row, column) != bitPacked.getCell(row, column) ? 1 : 0;
+                }
+            }
+        }
+        double cells = (double) ROWS * COLUMNS * RULES;
+        IO.println(String.format("ARRAY: %.0f cells/sec", cells / (arrayNanos / 1e9)));
+        IO.println(String.format("BIT_PACKED: %.0f cells/sec", cells / (bitPackedNanos / 1e9)));
+        IO.println(String.format("speedup %.1fx | mismatches %d", (double) arrayNanos / bitPackedNanos, mismatches));
+    }
+
+    private long time(ElementaryCellularAutomaton elementaryCellularAutomaton, ElementaryCellularAutomatonRule rule) {
+        elementaryCellularAutomaton.reset();
+        elementaryCellularAutomaton.setCell(0, COLUMNS / 2, true);
+        long start = System.nanoTime();
+        elementaryCellularAutomaton.process(rule);
+        return System.nanoTime() - start;
+    }
+}
+
+public class ElementaryCellularAutomatonRandom implements RandomGenerator {
+    private static final int CELLS = 97;
+    private static final int TAPS = 4;
+    private static final int TAP_DISTANCE = CELLS / TAPS;
+    private static final int WARM_UP_GENERATIONS = 4 * CELLS;
+
+    private long[] cells = new long[CELLS];
+    private long[] buffer = new long[CELLS];
+    private int tap = TAPS;
+
+    public ElementaryCellularAutomatonRandom() {
+        this(RandomGenerator.getDefault().nextLong());
+    }
+
+    public ElementaryCellularAutomatonRandom(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    protected ElementaryCellularAutomatonRandom(RandomGenerator seeder) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            this.cells[cell] = seeder.nextLong();
+        }
+        for (int generation = 0; generation < WARM_UP_GENERATIONS; generation++) {
+            this.nextGeneration();
+        }
+    }
+
+    // Each bit of a cell belongs to a different automaton, so one generation of 64 cyclic rule-30 rows yields a long per tap
+    @Override
+    public long nextLong() {
+        if (this.tap == TAPS) {
+            this.nextGeneration();
+            this.tap = 0;
+        }
+        return this.cells[TAP_DISTANCE * this.tap++];
+    }
+
+    // Formula: left XOR (middle OR right), the algebraic form of rule 30
+    private void nextGeneration() {
+        long[] cells = this.cells;
+        long[] next = this.buffer;
+        next[0] = cells[CELLS - 1] ^ (cells[0] | cells[1]);
+        for (int cell = 1; cell < CELLS - 1; cell++) {
+            next[cell] = cells[cell - 1] ^ (cells[cell] | cells[cell + 1]);
+        }
+        next[CELLS - 1] = cells[CELLS - 2] ^ (cells[CELLS - 1] | cells[0]);
+        this.buffer = cells;
+        this.cells = next;
+    }
+}
+
+public class ElementaryCellularAutomatonSplittableRandom extends ElementaryCellularAutomatonRandom implements RandomGenerator.SplittableGenerator {
+    public ElementaryCellularAutomatonSplittableRandom() {
+        super();
+    }
+
+    public ElementaryCellularAutomatonSplittableRandom(long seed) {
+        super(seed);
+    }
+
+    private ElementaryCellularAutomatonSplittableRandom(RandomGenerator seeder) {
+        super(seeder);
+    }
+
+    @Override
+    public ElementaryCellularAutomatonSplittableRandom split() {
+        return this.split(this);
+    }
+
+    @Override
+    public ElementaryCellularAutomatonSplittableRandom split(RandomGenerator.SplittableGenerator source) {
+        Objects.requireNonNull(source);
+        return new ElementaryCellularAutomatonSplittableRandom(source);
+    }
+
+    @Override
+    public Stream<RandomGenerator.SplittableGenerator> splits(long streamSize) {
+        return this.splits(streamSize, this);
+    }
+
+    @Override
+    public Stream<RandomGenerator.SplittableGenerator> splits(RandomGenerator.SplittableGenerator source) {
+        return this.splits(Long.MAX_VALUE, source);
+    }
+
+    @Override
+    public Stream<RandomGenerator.SplittableGenerator> splits(long streamSize, RandomGenerator.SplittableGenerator source) {
+        if (streamSize < 0) {
+            throw new IllegalArgumentException("Invalid stream size: " + streamSize);
+        }
+        Objects.requireNonNull(source);
+        return Stream.<RandomGenerator.SplittableGenerator>generate(() -> this.split(source)).limit(streamSize);
+    }
+
+    // Streams split the generator along with the spliterator, so parallel pipelines never share state
+    @Override
+    public LongStream longs(long streamSize) {
+        if (streamSize < 0) {
+            throw new IllegalArgumentException("Invalid stream size: " + streamSize);
+        }
+        return StreamSupport.longStream(new ElementaryCellularAutomatonRandomSpliterator(this.split(), 0, streamSize), false);
+    }
+
+    @Override
+    public LongStream longs() {
+        return this.longs(Long.MAX_VALUE);
+    }
+
+    @Override
+    public IntStream ints(long streamSize) {
+        return this.longs(streamSize).mapToInt(value -> (int) (value >>> 32));
+    }
+
+    @Override
+    public IntStream ints() {
+        return this.ints(Long.MAX_VALUE);
+    }
+
+    @Override
+    public DoubleStream doubles(long streamSize) {
+        return this.longs(streamSize).mapToDouble(value -> (value >>> 11) * 0x1.0p-53);
+    }
+
+    @Override
+    public DoubleStream doubles() {
+        return this.doubles(Long.MAX_VALUE);
+    }
+}
+
+public static class ElementaryCellularAutomatonRandomSpliterator implements Spliterator.OfLong {
+    private RandomGenerator.SplittableGenerator generator;
+    private long index;
+    private long fence;
+
+    public ElementaryCellularAutomatonRandomSpliterator(RandomGenerator.SplittableGenerator generator, long index, long fence) {
+        this.generator = generator;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public ElementaryCellularAutomatonRandomSpliterator trySplit() {
+        long middle = (this.index + this.fence) >>> 1;
+        if (middle <= this.index) {
+            return null;
+        }
+        ElementaryCellularAutomatonRandomSpliterator prefix = new ElementaryCellularAutomatonRandomSpliterator(this.generator.split(), this.index, middle);
+        this.index = middle;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        Objects.requireNonNull(action);
+        if (this.index >= this.fence) {
+            return false;
+        }
+        action.accept(this.generator.nextLong());
+        this.index++;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        Objects.requireNonNull(action);
+        for (; this.index < this.fence; this.index++) {
+            action.accept(this.generator.nextLong());
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.fence - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+}
+
+public class ElementaryCellularAutomatonRandomBenchmark {
+    private static final long VALUES = 50_000_000L;
+    private static final int RUNS = 5;
+    private static final int SAMPLES = 1 << 20;
+    private static final int BYTE_VALUES = 256;
+    // Critical values with a 0.1% false alarm rate: 4 standard deviations, chi-square with 255 degrees of freedom
+    private static final double MAX_DEVIATIONS = 4.0;
+    private static final double MAX_CHI_SQUARE = 330.5;
+
+    public void run() {
+        Map<String, Supplier<RandomGenerator>> generators = new LinkedHashMap<>();
+        generators.put("Random", () -> new Random(1L));
+        generators.put("SplittableRandom", () -> new SplittableRandom(1L));
+        generators.put("Xoshiro256PlusPlus", () -> RandomGenerator.of("Xoshiro256PlusPlus"));
+        generators.put("Rule30", () -> new ElementaryCellularAutomatonRandom(1L));
+        for (Map.Entry<String, Supplier<RandomGenerator>> entry : generators.entrySet()) {
+            RandomGenerator generator = entry.getValue().get();
+            long best = Long.MAX_VALUE;
+            long checksum = 0;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                for (long value = 0; value < VALUES; value++) {
+                    checksum += generator.nextLong();
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            IO.println(String.format("%s: %.0f longs/sec (checksum %d)", entry.getKey(), VALUES / (best / 1e9), checksum));
+        }
+        long start = System.nanoTime();
+        long sum = new SplittableRandom(1L).ints(VALUES).parallel().asLongStream().sum();
+        IO.println(String.format("SplittableRandom parallel ints: %.0f ints/sec (sum %d)", VALUES / ((System.nanoTime() - start) / 1e9), sum));
+        start = System.nanoTime();
+        sum = new ElementaryCellularAutomatonSplittableRandom(1L).ints(VALUES).parallel().asLongStream().sum();
+        IO.println(String.format("Rule30 parallel ints: %.0f ints/sec (sum %d)", VALUES / ((System.nanoTime() - start) / 1e9), sum));
+    }
+
+    // The generator itself and a split-off child, which must be just as uniform
+    public void runSmokeTest() {
+        runSmokeTest("Rule30", new ElementaryCellularAutomatonRandom(1L));
+        runSmokeTest("Rule30 split", new ElementaryCellularAutomatonSplittableRandom(1L).split());
+    }
+
+    private void runSmokeTest(String name, RandomGenerator generator) {
+        long ones = 0;
+        long[] byteCounts = new long[BYTE_VALUES];
+        double previous = generator.nextDouble();
+        double correlation = 0;
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            long value = generator.nextLong();
+            ones += Long.bitCount(value);
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                byteCounts[(int) ((value >>> shift) & 0xFF)]++;
+            }
+            double current = generator.nextDouble();
+            correlation += (previous - 0.5) * (current - 0.5);
+            previous = current;
+        }
+
+        // Monobit: the count of ones is binomial with mean n/2 and standard deviation sqrt(n)/2
+        double bits = (double) SAMPLES * Long.SIZE;
+        double monobitDeviations = Math.abs(ones - bits / 2) / (Math.sqrt(bits) / 2);
+        double expected = (double) SAMPLES * Long.BYTES / BYTE_VALUES;
+        double chiSquare = 0;
+        for (long count : byteCounts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        // Serial correlation of uniform doubles: each product has variance 1/144
+        double correlationDeviations = Math.abs(correlation) / (Math.sqrt(SAMPLES) / 12);
+
+        IO.println(String.format("%s monobit: %.2f deviations %s", name, monobitDeviations, monobitDeviations < MAX_DEVIATIONS ? "PASS" : "FAIL"));
+        IO.println(String.format("%s byte chi-square: %.1f %s", name, chiSquare, chiSquare < MAX_CHI_SQUARE ? "PASS" : "FAIL"));
+        IO.println(String.format("%s serial correlation: %.2f deviations %s", name, correlationDeviations, correlationDeviations < MAX_DEVIATIONS ? "PASS" : "FAIL"));
+    }
+}
+
+public class ElementaryCellularAutomatonBatchRenderer {
+    private static final long FAILURE_CHECK_MILLIS = 100;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private int rows;
+    private int columns;
+    private Path directory;
+    private int encoders = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    public ElementaryCellularAutomatonBatchRenderer(int rows, int columns, Path directory) {
+        this.rows = rows;
+        this.columns = columns;
+        this.directory = Objects.requireNonNull(directory);
+    }
+
+    public void setEncoders(int encoders) {
+        if (encoders <= 0) {
+            throw new IllegalArgumentException("Invalid encoder quantity: " + encoders);
+        }
+        this.encoders = encoders;
+    }
+
+    public void renderRules(int fromRule, int toRule) {
+        ElementaryCellularAutomaton elementaryCellularAutomaton = new ElementaryCellularAutomaton(this.rows, this.columns, ElementaryCellularAutomatonEngineType.BIT_PACKED);
+        int stride = (this.columns + 7) / 8;
+        BlockingQueue<ElementaryCellularAutomatonBatchImage> imageQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(QUEUE_CAPACITY + this.encoders + 1);
+        for (int buffer = 0; buffer < QUEUE_CAPACITY + this.encoders + 1; buffer++) {
+            freeBuffers.add(new byte[this.rows * stride]);
+        }
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.encoders);
+        try {
+            Files.createDirectories(this.directory);
+            for (int encoder = 0; encoder < this.encoders; encoder++) {
+                executor.execute(() -> encode(imageQueue, freeBuffers, failure));
+            }
+            // Compute the next rule while the encoders compress the previous ones
+            for (int rule = fromRule; rule < toRule && failure.get() == null; rule++) {
+                elementaryCellularAutomaton.reset();
+                elementaryCellularAutomaton.setCell(0, this.columns / 2, true);
+                elementaryCellularAutomaton.process(ElementaryCellularAutomatonRule.of(rule));
+                byte[] pixels = take(freeBuffers, failure);
+                if (pixels == null) {
+                    break;
+                }
+                pack(elementaryCellularAutomaton, pixels, stride);
+                put(imageQueue, failure, new ElementaryCellularAutomatonBatchImage(rule, pixels));
+            }
+            for (int encoder = 0; encoder < this.encoders && failure.get() == null; encoder++) {
+                put(imageQueue, failure, ElementaryCellularAutomatonBatchImage.END);
+            }
+            // After a failure the encoders get no end marker, so they are interrupted by shutdownNow instead
+            if (failure.get() == null) {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            // A cancelled batch must not look like a finished one
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException(failure.get());
+        }
+    }
+
+    // One bit per cell, most significant bit first; a set bit is a white (inactive) pixel
+    private void pack(ElementaryCellularAutomaton elementaryCellularAutomaton, byte[] pixels, int stride) {
+        Arrays.fill(pixels, (byte) 0);
+        for (int row = 0; row < this.rows; row++) {
+            for (int column = 0; column < this.columns; column++) {
+                if (!elementaryCellularAutomaton.getCell(row, column)) {
+                    pixels[row * stride + column / 8] |= (byte) (0x80 >>> (column % 8));
+                }
+            }
+        }
+    }
+
+    // Blocking queue operations that give up once an encoder failed, so the producer cannot wait forever on them
+    private <E> E take(BlockingQueue<E> queue, AtomicReference<Exception> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            E element = queue.poll(FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private <E> void put(BlockingQueue<E> queue, AtomicReference<Exception> failure, E element) throws InterruptedException {
+        while (failure.get() == null && !queue.offer(element, FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            // Retry until there is room or an encoder failed
+        }
+    }
+
+    private void encode(BlockingQueue<ElementaryCellularAutomatonBatchImage> imageQueue, BlockingQueue<byte[]> freeBuffers, AtomicReference<Exception> failure) {
+        ElementaryCellularAutomatonPngEncoder encoder = new ElementaryCellularAutomatonPngEncoder();
+        try {
+            for (ElementaryCellularAutomatonBatchImage image = imageQueue.take(); image != ElementaryCellularAutomatonBatchImage.END; image = imageQueue.take()) {
+                Path file = this.directory.resolve(String.format("rule-%03d.png", image.rule()));
+                try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    encoder.encode(output, this.columns, this.rows, image.pixels());
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                freeBuffers.put(image.pixels());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+public record ElementaryCellularAutomatonBatchImage(int rule, byte[] pixels) {
+    private static final ElementaryCellularAutomatonBatchImage END = new ElementaryCellularAutomatonBatchImage(-1, new byte[0]);
+}
+
+public static class ElementaryCellularAutomatonPngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final int FILTER_NONE = 0;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private CRC32 crc = new CRC32();
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private byte[] filter = {FILTER_NONE};
+
+    public void encode(OutputStream output, int width, int height, byte[] pixels) throws IOException {
+        int stride = (width + 7) / 8;
+        if (width <= 0 || height <= 0 || pixels.length < height * stride) {
+            throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+        }
+        DataOutputStream data = new DataOutputStream(output);
+        data.write(SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) BIT_DEPTH).put((byte) COLOR_TYPE_GRAYSCALE).put((byte) 0).put((byte) 0).put((byte) 0);
+        this.writeChunk(data, "IHDR", header.array(), header.position());
+
+        this.deflater.reset();
+        this.chunkLength = 0;
+        for (int row = 0; row < height; row++) {
+            this.deflate(data, this.filter, 0, 1);
+            this.deflate(data, pixels, row * stride, stride);
+        }
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            this.deflateChunk(data);
+        }
+        if (this.chunkLength > 0) {
+            this.writeChunk(data, "IDAT", this.chunk, this.chunkLength);
+        }
+        this.writeChunk(data, "IEND", this.chunk, 0);
+        data.flush();
+    }
+
+    private void deflate(DataOutputStream data, byte[] bytes, int offset, int length) throws IOException {
+        this.deflater.setInput(bytes, offset, length);
+        while (!this.deflater.needsInput()) {
+            this.deflateChunk(data);
+        }
+    }
+
+    // IDAT chunks are written as soon as the compressed buffer fills, so the encoded image is never held in memory
+    private void deflateChunk(DataOutputStream data) throws IOException {
+        this.chunkLength += this.deflater.deflate(this.chunk, this.chunkLength, CHUNK_SIZE - this.chunkLength);
+        if (this.chunkLength == CHUNK_SIZE) {
+            this.writeChunk(data, "IDAT", this.chunk, CHUNK_SIZE);
+            this.chunkLength = 0;
+        }
+    }
+
+    private void writeChunk(DataOutputStream data, String type, byte[] bytes, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        this.crc.reset();
+        this.crc.update(typeBytes);
+        this.crc.update(bytes, 0, length);
+        data.writeInt(length);
+        data.write(typeBytes);
+        data.write(bytes, 0, length);
+        data.writeInt((int) this.crc.getValue());
     }
 }
 
 public class ElementaryCellularAutomatonFrame extends JFrame {
     private static final int SCALE = 2;
 
-    private ElementaryCellularAutomatonCanvas canvas;
+    private JPanel canvas;
 
     public ElementaryCellularAutomatonFrame(ElementaryCellularAutomaton elementaryCellularAutomaton) {
         this.canvas = new ElementaryCellularAutomatonCanvas(elementaryCellularAutomaton);
+        this.initialize(elementaryCellularAutomaton.getColumns(), elementaryCellularAutomaton.getRows());
+    }
+
+    public ElementaryCellularAutomatonFrame(ElementaryCellularAutomatonGenerator generator, int historyRows) {
+        ElementaryCellularAutomatonScrollingCanvas scrollingCanvas = new ElementaryCellularAutomatonScrollingCanvas(generator, historyRows);
+        this.canvas = scrollingCanvas;
+        this.initialize(generator.getColumns(), historyRows);
+        scrollingCanvas.start();
+    }
+
+    private void initialize(int columns, int rows) {
         this.setTitle("Elementary Cellular Automaton");
-        this.setSize(elementaryCellularAutomaton.getColumns() * SCALE, elementaryCellularAutomaton.getRows() * SCALE);
+        this.setSize(columns * SCALE, rows * SCALE);
         this.setLocationRelativeTo(null);
         this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         this.setResizable(false);
@@ -165,4 +885,56 @@ public class ElementaryCellularAutomatonCanvas extends JPanel {
             }
         }
     }
-}
\ No newline at end of file
+}
+
+public class ElementaryCellularAutomatonScrollingCanvas extends JPanel {
+    private static final int DELAY_MS = 16;
+    private static final int ROWS_PER_TICK = 2;
+    private static final int ACTIVE_COLOR = Color.BLACK.getRGB();
+    private static final int INACTIVE_COLOR = Color.WHITE.getRGB();
+
+    private ElementaryCellularAutomatonGenerator generator;
+    private ElementaryCellularAutomatonHistory history;
+    private BufferedImage image;
+    private int[] pixels;
+    private Timer timer;
+
+    public ElementaryCellularAutomatonScrollingCanvas(ElementaryCellularAutomatonGenerator generator, int historyRows) {
+        this.generator = Objects.requireNonNull(generator);
+        this.history = new ElementaryCellularAutomatonHistory(historyRows, generator.getWords());
+        this.image = new BufferedImage(generator.getColumns(), historyRows, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+        this.timer = new Timer(DELAY_MS, e -> this.scroll());
+    }
+
+    public void start() {
+        this.timer.start();
+    }
+
+    public void stop() {
+        this.timer.stop();
+    }
+
+    private void scroll() {
+        for (int row = 0; row < ROWS_PER_TICK; row++) {
+            this.history.add(this.generator);
+        }
+        this.repaint();
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int columns = this.generator.getColumns();
+        Arrays.fill(this.pixels, INACTIVE_COLOR);
+        for (int row = 0; row < this.history.getSize(); row++) {
+            for (int column = 0; column < columns; column++) {
+                if (this.history.getCell(row, column)) {
+                    this.pixels[row * columns + column] = ACTIVE_COLOR;
+                }
+            }
+        }
+        int scale = ElementaryCellularAutomatonFrame.SCALE;
+        g.drawImage(this.image, 0, 0, columns * scale, this.history.getCapacity() * scale, null);
+    }
+}
@@ -1,10 +1,17 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
 
 void main() {
+    if (GraphicsEnvironment.isHeadless()) {
+        new GameOfLifeBenchmark().run();
+        return;
+    }
     SwingUtilities.invokeLater(() -> {
         GameOfLifeRule rule = GameOfLifeRule.of(GameOfLifeRuleVariation.GOL.getNotation());
-        GameOfLife gameOfLife = new GameOfLife(75, 100, rule);
+        GameOfLife gameOfLife = new GameOfLife(75, 100, rule, GameOfLifeEngineType.BIT_PACKED);
         int offsetRows = 35;
         int offsetColumns = 60;
         gameOfLife.setCell(0 + offsetRows, 1 + offsetColumns, true);
@@ -17,58 +24,83 @@ void main() {
 
         GameOfLifeFrame gameOfLifeFrame = new GameOfLifeFrame(gameOfLife);
         GameOfLifeProcessor gameOfLifeProcessor = new GameOfLifeProcessor(gameOfLifeFrame, 50);
-        new Thread(gameOfLifeProcessor).start();
+        gameOfLifeProcessor.setRunning(true);
     });
 }
 
 public class GameOfLife {
-    private static final int MAX_WIDTH = 999;
-    private static final int MAX_HEIGHT = 999;
+    private static final int MAX_ROWS = 32767;
+    private static final int MAX_COLUMNS = 32767;
 
     private int rows;
     private int columns;
+    private int viewportRow;
+    private int viewportColumn;
     private GameOfLifeRule rule;
-    private boolean[][] grid;
-    private boolean[][] buffer;
+    private GameOfLifeEngine engine;
 
     public GameOfLife(int rows, int columns, GameOfLifeRule rule) {
-        Objects.checkIndex(rows, MAX_WIDTH + 1);
-        Objects.checkIndex(columns, MAX_HEIGHT + 1);
+        this(rows, columns, rule, GameOfLifeEngineType.ARRAY);
+    }
+
+    public GameOfLife(int rows, int columns, GameOfLifeRule rule, GameOfLifeEngineType engineType) {
+        this(rows, columns, rule, engineType, null);
+    }
+
+    public GameOfLife(int rows, int columns, GameOfLifeRule rule, GameOfLifeEngineType engineType, ExecutorService executor) {
+        Objects.checkIndex(rows, MAX_ROWS + 1);
+        Objects.checkIndex(columns, MAX_COLUMNS + 1);
         Objects.requireNonNull(rule);
+        Objects.requireNonNull(engineType);
         this.rows = rows;
         this.columns = columns;
         this.rule = rule;
-        this.grid = new boolean[rows][columns];
-        this.buffer = new boolean[rows][columns];
+        GameOfLifeEngine engine = createEngine(engineType);
+        if (executor == null) {
+            this.engine = engine;
+        } else if (engine instanceof GameOfLifeBandedEngine bandedEngine) {
+            this.engine = new GameOfLifeParallelEngine(bandedEngine, rows, executor);
+        } else {
+            throw new IllegalArgumentException("Engine does not support parallel processing: " + engineType);
+        }
     }
 
     public void setCell(int row, int column, boolean alive) {
-        Objects.checkIndex(row, this.rows);
-        Objects.checkIndex(column, this.columns);
-        this.grid[row][column] = alive;
+        if (this.engine.isBounded()) {
+            Objects.checkIndex(row, this.rows);
+            Objects.checkIndex(column, this.columns);
+        }
+        this.engine.setCell(row, column, alive);
     }
 
-    public void reset() {
-        for (int row = 0; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                this.grid[row][column] = false;
-            }
+    public void setViewport(int row, int column) {
+        if (this.engine.isBounded()) {
+            throw new IllegalStateException("Viewport can only be moved on unbounded engines");
         }
+        this.viewportRow = row;
+        this.viewportColumn = column;
+    }
+
+    public void reset() {
+        this.engine.reset();
     }
 
     public void nextGeneration() {
-        for (int row = 0; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                int aliveNeighborQuantity = getAliveNeighborQuantity(row, column);
-                GameOfLifeState newState = this.rule.getState(aliveNeighborQuantity);
-                switch (newState) {
-                    case GameOfLifeState.BORN -> this.buffer[row][column] = true;
-                    case GameOfLifeState.KEEP -> this.buffer[row][column] = this.grid[row][column];
-                    case GameOfLifeState.DIE -> this.buffer[row][column] = false;
-                }
-            }
+        this.engine.nextGeneration();
+    }
+
+    // Hashlife jumps ahead in a logarithmic number of steps, other engines go one generation at a time
+    public void advance(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must not be negative: " + generations);
+        }
+        if (this.engine instanceof GameOfLifeHashlifeEngine hashlifeEngine) {
+            hashlifeEngine.advance(generations);
+            return;
+        }
+        for (long generation = 0; generation < generations; generation++) {
+            this.engine.nextGeneration();
         }
-        this.flush();
     }
 
     public int getRows() {
@@ -83,15 +115,70 @@ public class GameOfLife {
         return rule;
     }
 
-    private void flush() {
-        for (int row = 0; row < this.rows; row++) {
-            for (int column = 0; column < this.columns; column++) {
-                this.grid[row][column] = this.buffer[row][column];
-            }
-        }
+    private GameOfLifeEngine createEngine(GameOfLifeEngineType engineType) {
+        return switch (engineType) {
+            case ARRAY -> new GameOfLifeArrayEngine(this.rows, this.columns, this.rule);
+            case BIT_PACKED -> new GameOfLifeBitEngine(this.rows, this.columns, this.rule);
+            case SPARSE -> new GameOfLifeSparseEngine(this.rule);
+            case HASHLIFE -> new GameOfLifeHashlifeEngine(this.rule);
+        };
     }
 
     private boolean getCell(int row, int column) {
+        if (row < 0 || row >= this.rows) {
+            return false;
+        }
+        if (column < 0 || column >= this.columns) {
+            return false;
+        }
+        return this.engine.getCell(row + this.viewportRow, column + this.viewportColumn);
+    }
+}
+
+public interface GameOfLifeEngine {
+    boolean getCell(int row, int column);
+
+    void setCell(int row, int column, boolean alive);
+
+    void reset();
+
+    void nextGeneration();
+
+    default boolean isBounded() {
+        return true;
+    }
+}
+
+public interface GameOfLifeBandedEngine extends GameOfLifeEngine {
+    void computeRows(int fromRow, int toRow);
+
+    void swapBuffers();
+}
+
+public enum GameOfLifeEngineType {
+    ARRAY,
+    BIT_PACKED,
+    SPARSE,
+    HASHLIFE
+}
+
+public class GameOfLifeArrayEngine implements GameOfLifeBandedEngine {
+    private int rows;
+    private int columns;
+    private GameOfLifeRule rule;
+    private boolean[][] grid;
+    private boolean[][] buffer;
+
+    public GameOfLifeArrayEngine(int rows, int columns, GameOfLifeRule rule) {
+        this.rows = rows;
+        this.columns = columns;
+        this.rule = rule;
+        this.grid = new boolean[rows][columns];
+        this.buffer = new boolean[rows][columns];
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
         if (row < 0 || row >= this.rows) {
             return false;
         }
@@ -101,6 +188,43 @@ public class GameOfLife {
         return this.grid[row][column];
     }
 
+    @Override
+    public void setCell(int row, int column, boolean alive) {
+        this.grid[row][column] = alive;
+    }
+
+    @Override
+    public void reset() {
+        for (int row = 0; row < this.rows; row++) {
+            for (int column = 0; column < this.columns; column++) {
+                this.grid[row][column] = false;
+            }
+        }
+    }
+
+    @Override
+    public void nextGeneration() {
+        this.computeRows(0, this.rows);
+        this.swapBuffers();
+    }
+
+    @Override
+    public void computeRows(int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = 0; column < this.columns; column++) {
+                int aliveNeighborQuantity = getAliveNeighborQuantity(row, column);
+                this.buffer[row][column] = this.rule.nextState(this.grid[row][column], aliveNeighborQuantity);
+            }
+        }
+    }
+
+    @Override
+    public void swapBuffers() {
+        boolean[][] swap = this.grid;
+        this.grid = this.buffer;
+        this.buffer = swap;
+    }
+
     private int getAliveNeighborQuantity(int row, int column) {
         int quantity = 0;
         quantity += getCell(row - 1, column - 1) ? 1 : 0;
@@ -115,15 +239,696 @@ public class GameOfLife {
     }
 }
 
+public class GameOfLifeBitEngine implements GameOfLifeBandedEngine {
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = WORD_BITS - 1;
+
+    private int rows;
+    private int words;
+    private long lastWordMask;
+    private GameOfLifeRule rule;
+    private long[] grid;
+    private long[] buffer;
+
+    public GameOfLifeBitEngine(int rows, int columns, GameOfLifeRule rule) {
+        this.rows = rows;
+        this.words = (columns + WORD_MASK) >>> WORD_SHIFT;
+        this.lastWordMask = (columns & WORD_MASK) == 0 ? -1L : (1L << (columns & WORD_MASK)) - 1;
+        this.grid = new long[rows * this.words];
+        this.buffer = new long[rows * this.words];
+        this.rule = rule;
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        long word = this.grid[row * this.words + (column >>> WORD_SHIFT)];
+        return ((word >>> (column & WORD_MASK)) & 1L) != 0;
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean alive) {
+        int index = row * this.words + (column >>> WORD_SHIFT);
+        long bit = 1L << (column & WORD_MASK);
+        this.grid[index] = alive ? this.grid[index] | bit : this.grid[index] & ~bit;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(this.grid, 0L);
+    }
+
+    @Override
+    public void nextGeneration() {
+        this.computeRows(0, this.rows);
+        this.swapBuffers();
+    }
+
+    @Override
+    public void computeRows(int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (int word = 0; word < this.words; word++) {
+                this.buffer[row * this.words + word] = computeWord(row, word);
+            }
+        }
+    }
+
+    @Override
+    public void swapBuffers() {
+        long[] swap = this.grid;
+        this.grid = this.buffer;
+        this.buffer = swap;
+    }
+
+    private long computeWord(int row, int word) {
+        long above = getWord(row - 1, word);
+        long center = getWord(row, word);
+        long below = getWord(row + 1, word);
+        long next = this.rule.nextWord(
+                westOf(row - 1, word, above), above, eastOf(row - 1, word, above),
+                westOf(row, word, center), center, eastOf(row, word, center),
+                westOf(row + 1, word, below), below, eastOf(row + 1, word, below)
+        );
+        return word == this.words - 1 ? next & this.lastWordMask : next;
+    }
+
+    private long getWord(int row, int word) {
+        if (row < 0 || row >= this.rows || word < 0 || word >= this.words) {
+            return 0L;
+        }
+        return this.grid[row * this.words + word];
+    }
+
+    private long westOf(int row, int word, long value) {
+        return (value << 1) | (getWord(row, word - 1) >>> WORD_MASK);
+    }
+
+    private long eastOf(int row, int word, long value) {
+        return (value >>> 1) | (getWord(row, word + 1) << WORD_MASK);
+    }
+}
+
+public class GameOfLifeSparseEngine implements GameOfLifeEngine {
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private GameOfLifeRule rule;
+    private Map<Long, Chunk> chunks = new HashMap<>();
+    private Set<Long> active = new HashSet<>();
+    private long[] scratch = new long[CHUNK_SIZE];
+
+    public GameOfLifeSparseEngine(GameOfLifeRule rule) {
+        Objects.requireNonNull(rule);
+        if ((rule.getBornMask() & 1) != 0) {
+            throw new IllegalArgumentException("Rules with birth on 0 neighbors cannot be sparse: " + rule);
+        }
+        this.rule = rule;
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        Chunk chunk = this.chunks.get(key(row >> CHUNK_SHIFT, column >> CHUNK_SHIFT));
+        if (chunk == null) {
+            return false;
+        }
+        return ((chunk.cells[row & CHUNK_MASK] >>> (column & CHUNK_MASK)) & 1L) != 0;
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean alive) {
+        long key = key(row >> CHUNK_SHIFT, column >> CHUNK_SHIFT);
+        Chunk chunk = this.chunks.get(key);
+        if (chunk == null) {
+            if (!alive) {
+                return;
+            }
+            chunk = new Chunk();
+            this.chunks.put(key, chunk);
+        }
+        long bit = 1L << (column & CHUNK_MASK);
+        int chunkRow = row & CHUNK_MASK;
+        chunk.cells[chunkRow] = alive ? chunk.cells[chunkRow] | bit : chunk.cells[chunkRow] & ~bit;
+        if (chunk.isEmpty()) {
+            this.chunks.remove(key);
+        }
+        this.active.add(key);
+    }
+
+    @Override
+    public void reset() {
+        this.chunks.clear();
+        this.active.clear();
+    }
+
+    @Override
+    public void nextGeneration() {
+        Set<Long> candidates = new HashSet<>();
+        for (long key : this.active) {
+            int chunkRow = rowOf(key);
+            int chunkColumn = columnOf(key);
+            for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    candidates.add(key(chunkRow + rowOffset, chunkColumn + columnOffset));
+                }
+            }
+        }
+
+        Map<Long, Chunk> created = new HashMap<>();
+        Set<Long> changed = new HashSet<>();
+        for (long key : candidates) {
+            Chunk chunk = this.chunks.get(key);
+            if (chunk != null) {
+                computeChunk(key, chunk.next);
+                if (!Arrays.equals(chunk.cells, chunk.next)) {
+                    changed.add(key);
+                }
+            } else if (computeChunk(key, this.scratch)) {
+                chunk = new Chunk();
+                System.arraycopy(this.scratch, 0, chunk.next, 0, CHUNK_SIZE);
+                created.put(key, chunk);
+                changed.add(key);
+            }
+        }
+
+        this.chunks.putAll(created);
+        for (long key : changed) {
+            Chunk chunk = this.chunks.get(key);
+            chunk.swapBuffers();
+            if (chunk.isEmpty()) {
+                this.chunks.remove(key);
+            }
+        }
+        this.active = changed;
+    }
+
+    @Override
+    public boolean isBounded() {
+        return false;
+    }
+
+    public long getPopulation() {
+        long population = 0;
+        for (Chunk chunk : this.chunks.values()) {
+            for (long word : chunk.cells) {
+                population += Long.bitCount(word);
+            }
+        }
+        return population;
+    }
+
+    public int getChunkQuantity() {
+        return this.chunks.size();
+    }
+
+    private boolean computeChunk(long key, long[] target) {
+        int chunkRow = rowOf(key);
+        int chunkColumn = columnOf(key);
+        long[] north = cellsOf(chunkRow - 1, chunkColumn);
+        long[] northWest = cellsOf(chunkRow - 1, chunkColumn - 1);
+        long[] northEast = cellsOf(chunkRow - 1, chunkColumn + 1);
+        long[] center = cellsOf(chunkRow, chunkColumn);
+        long[] west = cellsOf(chunkRow, chunkColumn - 1);
+        long[] east = cellsOf(chunkRow, chunkColumn + 1);
+        long[] south = cellsOf(chunkRow + 1, chunkColumn);
+        long[] southWest = cellsOf(chunkRow + 1, chunkColumn - 1);
+        long[] southEast = cellsOf(chunkRow + 1, chunkColumn + 1);
+
+        long any = 0L;
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            long above = row == 0 ? north[CHUNK_MASK] : center[row - 1];
+            long aboveWest = row == 0 ? northWest[CHUNK_MASK] : west[row - 1];
+            long aboveEast = row == 0 ? northEast[CHUNK_MASK] : east[row - 1];
+            long below = row == CHUNK_MASK ? south[0] : center[row + 1];
+            long belowWest = row == CHUNK_MASK ? southWest[0] : west[row + 1];
+            long belowEast = row == CHUNK_MASK ? southEast[0] : east[row + 1];
+            long middle = center[row];
+            target[row] = this.rule.nextWord(
+                    (above << 1) | (aboveWest >>> CHUNK_MASK), above, (above >>> 1) | (aboveEast << CHUNK_MASK),
+                    (middle << 1) | (west[row] >>> CHUNK_MASK), middle, (middle >>> 1) | (east[row] << CHUNK_MASK),
+                    (below << 1) | (belowWest >>> CHUNK_MASK), below, (below >>> 1) | (belowEast << CHUNK_MASK)
+            );
+            any |= target[row];
+        }
+        return any != 0L;
+    }
+
+    private long[] cellsOf(int chunkRow, int chunkColumn) {
+        Chunk chunk = this.chunks.get(key(chunkRow, chunkColumn));
+        return chunk == null ? Chunk.EMPTY : chunk.cells;
+    }
+
+    private static long key(int chunkRow, int chunkColumn) {
+        return ((long) chunkRow << 32) | (chunkColumn & 0xFFFFFFFFL);
+    }
+
+    private static int rowOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int columnOf(long key) {
+        return (int) key;
+    }
+
+    private static class Chunk {
+        private static final long[] EMPTY = new long[CHUNK_SIZE];
+
+        private long[] cells = new long[CHUNK_SIZE];
+        private long[] next = new long[CHUNK_SIZE];
+
+        private void swapBuffers() {
+            long[] swap = this.cells;
+            this.cells = this.next;
+            this.next = swap;
+        }
+
+        private boolean isEmpty() {
+            for (long word : this.cells) {
+                if (word != 0L) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
+
+public class GameOfLifeHashlifeEngine implements GameOfLifeEngine {
+    private static final int BASE_LEVEL = 2;
+    private static final int MIN_ROOT_LEVEL = 3;
+    private static final int MAX_ROOT_LEVEL = 62;
+    private static final int MAX_NODES = 1 << 22;
+
+    private GameOfLifeRule rule;
+    private Map<Node, Node> nodes = new HashMap<>();
+    private List<Node> emptyNodes = new ArrayList<>();
+    private Node root;
+    private long originRow;
+    private long originColumn;
+    private long generation;
+
+    public GameOfLifeHashlifeEngine(GameOfLifeRule rule) {
+        Objects.requireNonNull(rule);
+        if ((rule.getBornMask() & 1) != 0) {
+            throw new IllegalArgumentException("Rules with birth on 0 neighbors cannot be used with Hashlife: " + rule);
+        }
+        this.rule = rule;
+        this.reset();
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        long size = 1L << this.root.level;
+        long localRow = row - this.originRow;
+        long localColumn = column - this.originColumn;
+        if (localRow < 0 || localRow >= size || localColumn < 0 || localColumn >= size) {
+            return false;
+        }
+        return getCell(this.root, localRow, localColumn);
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean alive) {
+        while (!contains(row, column)) {
+            this.expand();
+        }
+        this.root = setCell(this.root, row - this.originRow, column - this.originColumn, alive);
+    }
+
+    @Override
+    public void reset() {
+        this.nodes.clear();
+        this.emptyNodes.clear();
+        this.emptyNodes.add(Node.DEAD);
+        this.root = empty(MIN_ROOT_LEVEL);
+        this.originRow = -(1L << (MIN_ROOT_LEVEL - 1));
+        this.originColumn = -(1L << (MIN_ROOT_LEVEL - 1));
+        this.generation = 0;
+    }
+
+    @Override
+    public void nextGeneration() {
+        this.advance(1);
+    }
+
+    @Override
+    public boolean isBounded() {
+        return false;
+    }
+
+    public void advance(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must not be negative: " + generations);
+        }
+        for (int step = 0; generations >>> step != 0; step++) {
+            if (((generations >>> step) & 1) != 0) {
+                this.step(step);
+            }
+        }
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getPopulation() {
+        return this.root.population;
+    }
+
+    private void step(int step) {
+        while (this.root.level < step + 2 || !isCentered(this.root)) {
+            this.expand();
+        }
+        this.expand();
+        long offset = 1L << (this.root.level - 2);
+        this.root = successor(this.root, step);
+        this.originRow += offset;
+        this.originColumn += offset;
+        this.generation += 1L << step;
+        if (this.nodes.size() > MAX_NODES) {
+            this.collectGarbage();
+        }
+    }
+
+    private boolean contains(long row, long column) {
+        long size = 1L << this.root.level;
+        return row >= this.originRow && row < this.originRow + size
+                && column >= this.originColumn && column < this.originColumn + size;
+    }
+
+    private boolean isCentered(Node node) {
+        return node.population == node.nw.se.population + node.ne.sw.population
+                + node.sw.ne.population + node.se.nw.population;
+    }
+
+    private void expand() {
+        if (this.root.level >= MAX_ROOT_LEVEL) {
+            throw new IllegalStateException("Universe cannot be expanded beyond level " + MAX_ROOT_LEVEL);
+        }
+        Node border = empty(this.root.level - 1);
+        long offset = 1L << (this.root.level - 1);
+        this.root = join(
+                join(border, border, border, this.root.nw),
+                join(border, border, this.root.ne, border),
+                join(border, this.root.sw, border, border),
+                join(this.root.se, border, border, border)
+        );
+        this.originRow -= offset;
+        this.originColumn -= offset;
+    }
+
+    private void collectGarbage() {
+        this.nodes.clear();
+        this.emptyNodes.subList(1, this.emptyNodes.size()).clear();
+        this.root = rebuild(this.root, new IdentityHashMap<>());
+    }
+
+    private Node rebuild(Node node, Map<Node, Node> rebuilt) {
+        if (node.level == 0) {
+            return node;
+        }
+        Node copy = rebuilt.get(node);
+        if (copy == null) {
+            copy = join(rebuild(node.nw, rebuilt), rebuild(node.ne, rebuilt), rebuild(node.sw, rebuilt), rebuild(node.se, rebuilt));
+            rebuilt.put(node, copy);
+        }
+        return copy;
+    }
+
+    private Node successor(Node node, int step) {
+        if (node.population == 0) {
+            return empty(node.level - 1);
+        }
+        if (node.result != null && node.resultStep == step) {
+            return node.result;
+        }
+        Node result;
+        if (node.level == BASE_LEVEL) {
+            result = computeBase(node);
+        } else {
+            Node n00 = node.nw;
+            Node n01 = join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+            Node n02 = node.ne;
+            Node n10 = join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+            Node n11 = join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+            Node n12 = join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+            Node n20 = node.sw;
+            Node n21 = join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+            Node n22 = node.se;
+            boolean fullSpeed = step == node.level - 2;
+            int nextStep = fullSpeed ? step - 1 : step;
+            Node r00 = fullSpeed ? successor(n00, nextStep) : center(n00);
+            Node r01 = fullSpeed ? successor(n01, nextStep) : center(n01);
+            Node r02 = fullSpeed ? successor(n02, nextStep) : center(n02);
+            Node r10 = fullSpeed ? successor(n10, nextStep) : center(n10);
+            Node r11 = fullSpeed ? successor(n11, nextStep) : center(n11);
+            Node r12 = fullSpeed ? successor(n12, nextStep) : center(n12);
+            Node r20 = fullSpeed ? successor(n20, nextStep) : center(n20);
+            Node r21 = fullSpeed ? successor(n21, nextStep) : center(n21);
+            Node r22 = fullSpeed ? successor(n22, nextStep) : center(n22);
+            result = join(
+                    successor(join(r00, r01, r10, r11), nextStep),
+                    successor(join(r01, r02, r11, r12), nextStep),
+                    successor(join(r10, r11, r20, r21), nextStep),
+                    successor(join(r11, r12, r21, r22), nextStep)
+            );
+        }
+        node.result = result;
+        node.resultStep = step;
+        return result;
+    }
+
+    private Node computeBase(Node node) {
+        boolean[][] cells = new boolean[4][4];
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                cells[row][column] = getCell(node, row, column);
+            }
+        }
+        Node[] results = new Node[4];
+        for (int row = 1; row <= 2; row++) {
+            for (int column = 1; column <= 2; column++) {
+                int neighbors = 0;
+                for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                    for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                        if ((rowOffset != 0 || columnOffset != 0) && cells[row + rowOffset][column + columnOffset]) {
+                            neighbors++;
+                        }
+                    }
+                }
+                boolean alive = this.rule.nextState(cells[row][column], neighbors);
+                results[(row - 1) * 2 + (column - 1)] = alive ? Node.ALIVE : Node.DEAD;
+            }
+        }
+        return join(results[0], results[1], results[2], results[3]);
+    }
+
+    private Node center(Node node) {
+        return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    private boolean getCell(Node node, long row, long column) {
+        while (node.level > 0) {
+            if (node.population == 0) {
+                return false;
+            }
+            long half = 1L << (node.level - 1);
+            boolean south = row >= half;
+            boolean east = column >= half;
+            node = south ? (east ? node.se : node.sw) : (east ? node.ne : node.nw);
+            row -= south ? half : 0;
+            column -= east ? half : 0;
+        }
+        return node == Node.ALIVE;
+    }
+
+    private Node setCell(Node node, long row, long column, boolean alive) {
+        if (node.level == 0) {
+            return alive ? Node.ALIVE : Node.DEAD;
+        }
+        long half = 1L << (node.level - 1);
+        if (row < half && column < half) {
+            return join(setCell(node.nw, row, column, alive), node.ne, node.sw, node.se);
+        }
+        if (row < half) {
+            return join(node.nw, setCell(node.ne, row, column - half, alive), node.sw, node.se);
+        }
+        if (column < half) {
+            return join(node.nw, node.ne, setCell(node.sw, row - half, column, alive), node.se);
+        }
+        return join(node.nw, node.ne, node.sw, setCell(node.se, row - half, column - half, alive));
+    }
+
+    private Node empty(int level) {
+        while (this.emptyNodes.size() <= level) {
+            Node child = this.emptyNodes.getLast();
+            this.emptyNodes.add(join(child, child, child, child));
+        }
+        return this.emptyNodes.get(level);
+    }
+
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        Node node = new Node(nw, ne, sw, se);
+        Node existing = this.nodes.putIfAbsent(node, node);
+        return existing == null ? node : existing;
+    }
+
+    private static class Node {
+        private static final Node DEAD = new Node(false);
+        private static final Node ALIVE = new Node(true);
+
+        private final Node nw;
+        private final Node ne;
+        private final Node sw;
+        private final Node se;
+        private final int level;
+        private final long population;
+        private final int hash;
+        private Node result;
+        private int resultStep = -1;
+
+        private Node(boolean alive) {
+            this.nw = null;
+            this.ne = null;
+            this.sw = null;
+            this.se = null;
+            this.level = 0;
+            this.population = alive ? 1 : 0;
+            this.hash = alive ? 1 : 0;
+        }
+
+        private Node(Node nw, Node ne, Node sw, Node se) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            this.level = nw.level + 1;
+            this.population = nw.population + ne.population + sw.population + se.population;
+            this.hash = Objects.hash(System.identityHashCode(nw), System.identityHashCode(ne),
+                    System.identityHashCode(sw), System.identityHashCode(se));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node node)) {
+                return false;
+            }
+            return this.nw == node.nw && this.ne == node.ne && this.sw == node.sw && this.se == node.se;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
+
+public class GameOfLifeBenchmark {
+    private static final int[][] R_PENTOMINO = {{0, 1}, {0, 2}, {1, 0}, {1, 1}, {2, 1}};
+    private static final int[][] ACORN = {{0, 1}, {1, 3}, {2, 0}, {2, 1}, {2, 4}, {2, 5}, {2, 6}};
+    private static final int[][] DIEHARD = {{0, 6}, {1, 0}, {1, 1}, {2, 1}, {2, 5}, {2, 6}, {2, 7}};
+    private static final int ARRAY_SIZE = 512; // Escaping gliders die at the edges, so its population may differ
+
+    public void run() {
+        GameOfLifeRule rule = GameOfLifeRule.of(GameOfLifeRuleVariation.GOL.getNotation());
+        benchmark("R-pentomino", R_PENTOMINO, 1103, rule);
+        benchmark("Acorn", ACORN, 5206, rule);
+        benchmark("Diehard", DIEHARD, 130, rule);
+    }
+
+    private void benchmark(String name, int[][] pattern, long generations, GameOfLifeRule rule) {
+        GameOfLife array = new GameOfLife(ARRAY_SIZE, ARRAY_SIZE, rule, GameOfLifeEngineType.ARRAY);
+        GameOfLifeSparseEngine sparse = new GameOfLifeSparseEngine(rule);
+        GameOfLifeHashlifeEngine hashlife = new GameOfLifeHashlifeEngine(rule);
+        for (int[] cell : pattern) {
+            array.setCell(cell[0] + ARRAY_SIZE / 2, cell[1] + ARRAY_SIZE / 2, true);
+            sparse.setCell(cell[0], cell[1], true);
+            hashlife.setCell(cell[0], cell[1], true);
+        }
+        long start = System.nanoTime();
+        array.advance(generations);
+        long arrayNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (long generation = 0; generation < generations; generation++) {
+            sparse.nextGeneration();
+        }
+        long sparseNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        hashlife.advance(generations);
+        long hashlifeNanos = System.nanoTime() - start;
+        IO.println(String.format("%s (%d generations): array %dx%d %d ms | sparse stepping %d ms (population %d) | hashlife %d ms (population %d)",
+                name, generations, ARRAY_SIZE, ARRAY_SIZE, arrayNanos / 1_000_000, sparseNanos / 1_000_000, sparse.getPopulation(),
+                hashlifeNanos / 1_000_000, hashlife.getPopulation()));
+    }
+}
+
+public class GameOfLifeParallelEngine implements GameOfLifeEngine {
+    private static final int BANDS_PER_THREAD = 4;
+
+    private GameOfLifeBandedEngine engine;
+    private ExecutorService executor;
+    private List<Callable<Void>> bands = new ArrayList<>();
+
+    public GameOfLifeParallelEngine(GameOfLifeBandedEngine engine, int rows, ExecutorService executor) {
+        this.engine = Objects.requireNonNull(engine);
+        this.executor = Objects.requireNonNull(executor);
+        int parallelism = executor instanceof ForkJoinPool pool ? pool.getParallelism() : Runtime.getRuntime().availableProcessors();
+        int bandQuantity = Math.max(1, Math.min(rows, parallelism * BANDS_PER_THREAD));
+        for (int band = 0; band < bandQuantity; band++) {
+            int fromRow = (int) ((long) rows * band / bandQuantity);
+            int toRow = (int) ((long) rows * (band + 1) / bandQuantity);
+            this.bands.add(() -> {
+                engine.computeRows(fromRow, toRow);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public boolean getCell(int row, int column) {
+        return this.engine.getCell(row, column);
+    }
+
+    @Override
+    public void setCell(int row, int column, boolean alive) {
+        this.engine.setCell(row, column, alive);
+    }
+
+    @Override
+    public void reset() {
+        this.engine.reset();
+    }
+
+    @Override
+    public void nextGeneration() {
+        try {
+            for (Future<Void> future : this.executor.invokeAll(this.bands)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        this.engine.swapBuffers();
+    }
+}
+
 public static class GameOfLifeRule {
     private static final String DELIMITER = "/";
+    private static final int MAX_NEIGHBORS = 8;
 
     private String keep;
     private String born;
+    private int keepMask;
+    private int bornMask;
 
     private GameOfLifeRule(String keep, String born) {
         this.keep = keep;
         this.born = born;
+        this.keepMask = compileMask(keep);
+        this.bornMask = compileMask(born);
     }
 
     public static GameOfLifeRule of(String notation) {
@@ -135,15 +940,66 @@ public static class GameOfLifeRule {
         return new GameOfLifeRule(parts[0], parts[1]);
     }
 
-    public GameOfLifeState getState(int aliveNeighborQuantity) {
-        String aliveNeighborQuantityStr = String.valueOf(aliveNeighborQuantity);
-        if (born.contains(aliveNeighborQuantityStr)) {
-            return GameOfLifeState.BORN;
+    public boolean nextState(boolean alive, int neighbors) {
+        if (neighbors < 0 || neighbors > MAX_NEIGHBORS) {
+            return false;
+        }
+        int mask = alive ? this.bornMask | this.keepMask : this.bornMask;
+        return (mask & (1 << neighbors)) != 0;
+    }
+
+    public long nextWord(long aboveWest, long above, long aboveEast, long west, long center, long east,
+                         long belowWest, long below, long belowEast) {
+        // Full adders over the 8 neighbor lanes: count = ones + 2 * twos + 4 * fours + 8 * eights
+        long aboveSum = aboveWest ^ above ^ aboveEast;
+        long aboveCarry = (aboveWest & above) | (aboveEast & (aboveWest ^ above));
+        long belowSum = belowWest ^ below ^ belowEast;
+        long belowCarry = (belowWest & below) | (belowEast & (belowWest ^ below));
+        long centerSum = west ^ east;
+        long centerCarry = west & east;
+
+        long ones = aboveSum ^ belowSum ^ centerSum;
+        long onesCarry = (aboveSum & belowSum) | (centerSum & (aboveSum ^ belowSum));
+        long carrySum = aboveCarry ^ belowCarry ^ centerCarry;
+        long carryCarry = (aboveCarry & belowCarry) | (centerCarry & (aboveCarry ^ belowCarry));
+        long twos = carrySum ^ onesCarry;
+        long twosCarry = carrySum & onesCarry;
+        long fours = carryCarry ^ twosCarry;
+        long eights = carryCarry & twosCarry;
+
+        long next = 0L;
+        for (int quantity = 0; quantity <= MAX_NEIGHBORS; quantity++) {
+            int bit = 1 << quantity;
+            if (((this.bornMask | this.keepMask) & bit) == 0) {
+                continue;
+            }
+            long matches = ((quantity & 1) != 0 ? ones : ~ones)
+                    & ((quantity & 2) != 0 ? twos : ~twos)
+                    & ((quantity & 4) != 0 ? fours : ~fours)
+                    & ((quantity & 8) != 0 ? eights : ~eights);
+            next |= (this.bornMask & bit) != 0 ? matches : matches & center;
         }
-        if (keep.contains(aliveNeighborQuantityStr)) {
-            return GameOfLifeState.KEEP;
+        return next;
+    }
+
+    public int getKeepMask() {
+        return keepMask;
+    }
+
+    public int getBornMask() {
+        return bornMask;
+    }
+
+    private static int compileMask(String quantities) {
+        int mask = 0;
+        for (int i = 0; i < quantities.length(); i++) {
+            int quantity = Character.digit(quantities.charAt(i), 10);
+            if (quantity < 0 || quantity > MAX_NEIGHBORS) {
+                throw new IllegalArgumentException("Invalid neighbor quantity: " + quantities.charAt(i));
+            }
+            mask |= 1 << quantity;
         }
-        return GameOfLifeState.DIE;
+        return mask;
     }
 
     @Override
@@ -152,79 +1008,255 @@ public static class GameOfLifeRule {
     }
 }
 
-public class GameOfLifeProcessor implements Runnable {
+public class GameOfLifeProcessor {
+    private static final int DEFAULT_REFRESH_RATE = 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private GameOfLifeFrame gameOfLifeFrame;
     private long delayMs;
-    private volatile boolean running = true;
+    private long framePeriodNanos;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> simulation;
+    private ScheduledFuture<?> display;
+    private volatile boolean running = false;
+    private volatile boolean turbo = false;
+    private volatile int epoch = 0;
+    private volatile long generation = 0;
+    private volatile long skippedFrames = 0;
+    private volatile double generationsPerSecond = 0;
+    private volatile double frameTimeMs = 0;
+    private long renderedGeneration = 0;
+    private long metricsGeneration = 0;
+    private long metricsStart = System.nanoTime();
 
     public GameOfLifeProcessor(GameOfLifeFrame gameOfLifeFrame, long delayMs) {
-        this.gameOfLifeFrame = gameOfLifeFrame;
-        this.delayMs = delayMs;
+        this.gameOfLifeFrame = Objects.requireNonNull(gameOfLifeFrame);
+        this.delayMs = Math.max(1, delayMs);
+        this.framePeriodNanos = NANOS_PER_SECOND / getRefreshRate();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-of-life-processor");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public void setRunning(boolean running) {
+    public synchronized void setRunning(boolean running) {
+        if (this.running == running || this.executor.isShutdown()) {
+            return;
+        }
         this.running = running;
+        this.epoch++;
+        if (running) {
+            this.schedule();
+        } else {
+            this.cancel();
+        }
     }
 
-    @Override
-    public void run() {
-        while (this.running) {
-            try {
-                Thread.sleep(this.delayMs);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+    public synchronized void setTurbo(boolean turbo) {
+        if (this.turbo == turbo) {
+            return;
+        }
+        this.turbo = turbo;
+        if (this.running) {
+            this.setRunning(false);
+            this.setRunning(true);
+        }
+    }
+
+    public synchronized void stop() {
+        this.setRunning(false);
+        this.executor.shutdown();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public double getGenerationsPerSecond() {
+        return generationsPerSecond;
+    }
+
+    public double getFrameTimeMs() {
+        return frameTimeMs;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    private void schedule() {
+        if (this.turbo) {
+            int currentEpoch = this.epoch;
+            this.executor.execute(() -> this.runTurbo(currentEpoch));
+        } else {
+            this.simulation = this.executor.scheduleAtFixedRate(this::step, this.delayMs, this.delayMs, TimeUnit.MILLISECONDS);
+        }
+        this.display = this.executor.scheduleAtFixedRate(this::display, 0, this.framePeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancel() {
+        if (this.simulation != null) {
+            this.simulation.cancel(false);
+            this.simulation = null;
+        }
+        if (this.display != null) {
+            this.display.cancel(false);
+            this.display = null;
+        }
+    }
+
+    private void runTurbo(int currentEpoch) {
+        long deadline = System.nanoTime() + this.framePeriodNanos;
+        while (this.epoch == currentEpoch && System.nanoTime() < deadline) {
+            this.step();
+        }
+        if (this.epoch == currentEpoch) {
+            this.executor.execute(() -> this.runTurbo(currentEpoch));
+        }
+    }
+
+    private void step() {
+        this.gameOfLifeFrame.getGameOfLife().nextGeneration();
+        this.generation++;
+    }
+
+    private void display() {
+        long now = System.nanoTime();
+        if (this.generation != this.renderedGeneration) {
+            GameOfLifeRenderer renderer = this.gameOfLifeFrame.getRenderer();
+            if (renderer.isFramePending()) {
+                this.skippedFrames++;
+            } else {
+                renderer.render();
+                this.renderedGeneration = this.generation;
+                this.frameTimeMs = (System.nanoTime() - now) / 1_000_000.0;
+                this.gameOfLifeFrame.repaint();
             }
-            this.gameOfLifeFrame.getGameOfLife().nextGeneration();
-            this.gameOfLifeFrame.repaint();
-            this.gameOfLifeFrame.revalidate();
         }
+        if (now - this.metricsStart >= NANOS_PER_SECOND) {
+            this.generationsPerSecond = (double) (this.generation - this.metricsGeneration) * NANOS_PER_SECOND / (now - this.metricsStart);
+            this.metricsGeneration = this.generation;
+            this.metricsStart = now;
+            SwingUtilities.invokeLater(() -> this.gameOfLifeFrame.showMetrics(this.generationsPerSecond, this.frameTimeMs));
+        }
+    }
+
+    private static int getRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_REFRESH_RATE;
+        }
+        int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : refreshRate;
     }
 }
 
-public enum GameOfLifeState {
-    BORN,
-    KEEP,
-    DIE
+public class GameOfLifeRenderer {
+    private static final int ALIVE_RGB = Color.BLACK.getRGB();
+    private static final int DEAD_RGB = Color.WHITE.getRGB();
+
+    private GameOfLife gameOfLife;
+    private AtomicReference<RenderedFrame> latest;
+    private BufferedImage back;
+    private BufferedImage front;
+
+    public GameOfLifeRenderer(GameOfLife gameOfLife) {
+        this.gameOfLife = Objects.requireNonNull(gameOfLife);
+        this.back = createImage();
+        this.front = createImage();
+        this.latest = new AtomicReference<>(new RenderedFrame(createImage(), false));
+    }
+
+    public void render() {
+        int columns = this.gameOfLife.getColumns();
+        int[] pixels = ((DataBufferInt) this.back.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < this.gameOfLife.getRows(); row++) {
+            int offset = row * columns;
+            for (int column = 0; column < columns; column++) {
+                pixels[offset + column] = this.gameOfLife.getCell(row, column) ? ALIVE_RGB : DEAD_RGB;
+            }
+        }
+        this.back = this.latest.getAndSet(new RenderedFrame(this.back, true)).image();
+    }
+
+    public boolean isFramePending() {
+        return this.latest.get().fresh();
+    }
+
+    public BufferedImage getLatestFrame() {
+        if (this.latest.get().fresh()) {
+            this.front = this.latest.getAndSet(new RenderedFrame(this.front, false)).image();
+        }
+        return this.front;
+    }
+
+    private BufferedImage createImage() {
+        int width = Math.max(1, this.gameOfLife.getColumns());
+        int height = Math.max(1, this.gameOfLife.getRows());
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private record RenderedFrame(BufferedImage image, boolean fresh) {}
 }
 
 public class GameOfLifeFrame extends JFrame {
+    private static final String TITLE = "Game of Life (%s)";
+    private static final String METRICS_TITLE = "Game of Life (%s) - %.1f gen/s - %.2f ms/frame";
     private static final int SCALE = 8;
+    private static final int MAX_SIZE = 960;
+
     private GameOfLife gameOfLife;
+    private GameOfLifeRenderer renderer;
 
     public GameOfLifeFrame(GameOfLife gameOfLife) {
         Objects.requireNonNull(gameOfLife);
         this.gameOfLife = gameOfLife;
-        this.setTitle(String.format("Game of Life (%s)", this.gameOfLife.rule));
-        this.setSize(gameOfLife.getColumns() * SCALE, gameOfLife.getRows() * SCALE);
+        this.renderer = new GameOfLifeRenderer(gameOfLife);
+        this.renderer.render();
+        int scale = Math.clamp(MAX_SIZE / Math.max(1, Math.max(gameOfLife.getColumns(), gameOfLife.getRows())), 1, SCALE);
+        this.setTitle(String.format(TITLE, this.gameOfLife.rule));
+        this.setSize(gameOfLife.getColumns() * scale, gameOfLife.getRows() * scale);
         this.setLocationRelativeTo(null);
         this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         this.setResizable(false);
-        this.add(new GameOfLifePanel(gameOfLife));
+        this.add(new GameOfLifePanel(gameOfLife, this.renderer, scale));
         this.setVisible(true);
     }
 
     public GameOfLife getGameOfLife() {
         return gameOfLife;
     }
+
+    public GameOfLifeRenderer getRenderer() {
+        return renderer;
+    }
+
+    public void showMetrics(double generationsPerSecond, double frameTimeMs) {
+        this.setTitle(String.format(METRICS_TITLE, this.gameOfLife.rule, generationsPerSecond, frameTimeMs));
+    }
 }
 
 public class GameOfLifePanel extends JPanel {
     private GameOfLife gameOfLife;
+    private GameOfLifeRenderer renderer;
+    private int scale;
 
-    public GameOfLifePanel(GameOfLife gameOfLife) {
+    public GameOfLifePanel(GameOfLife gameOfLife, GameOfLifeRenderer renderer, int scale) {
         this.gameOfLife = gameOfLife;
+        this.renderer = renderer;
+        this.scale = scale;
     }
 
     @Override
     public void paint(Graphics g) {
         super.paint(g);
-        for (int row = 0; row < this.gameOfLife.getRows(); row++) {
-            for (int column = 0; column < this.gameOfLife.getColumns(); column++) {
-                boolean alive = this.gameOfLife.getCell(row, column);
-                g.setColor(alive ? Color.BLACK : Color.WHITE);
-                g.fillRect(column * GameOfLifeFrame.SCALE, row * GameOfLifeFrame.SCALE, GameOfLifeFrame.SCALE, GameOfLifeFrame.SCALE);
-            }
-        }
+        int width = this.gameOfLife.getColumns() * this.scale;
+        int height = this.gameOfLife.getRows() * this.scale;
+        g.drawImage(this.renderer.getLatestFrame(), 0, 0, width, height, null);
     }
 }
 
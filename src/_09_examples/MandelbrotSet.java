@@ -1,11 +1,33 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
 
 void main() {
+    if (GraphicsEnvironment.isHeadless()) {
+        MandelbrotBenchmark benchmark = new MandelbrotBenchmark();
+        benchmark.run();
+        benchmark.runInteriorSkipping();
+        MandelbrotSet mandelbrotSet = new MandelbrotSet(600, 800);
+        mandelbrotSet.setKernelType(MandelbrotKernelType.VECTOR);
+        MandelbrotBatchRenderer batchRenderer = new MandelbrotBatchRenderer(mandelbrotSet, MandelbrotPalette.SMOOTH, Path.of("mandelbrot-zoom"));
+        batchRenderer.renderZoom(Complex.of(-0.743643887, 0.131825904), 3.0, 1.05, 300, 2000);
+        return;
+    }
     SwingUtilities.invokeLater(() -> {
         MandelbrotSet mandelbrotSet = new MandelbrotSet(600, 800);
-        mandelbrotSet.process(MandelbrotSet.VIEWPORT_MIN, MandelbrotSet.VIEWPORT_MAX, 50);
+        mandelbrotSet.setKernelType(MandelbrotKernelType.VECTOR);
         MandelbrotSetFrame mandelbrotSetFrame = new MandelbrotSetFrame(mandelbrotSet);
+        mandelbrotSetFrame.explore(500);
     });
 }
 
@@ -15,11 +37,17 @@ public class MandelbrotSet {
 
     private static final int MAX_ROWS = 9999;
     private static final int MAX_COLUMNS = 9999;
+    private static final int MIN_TRACED_SIZE = 4;
 
     private int rows;
     private int columns;
     private int[][] grid;
+    private float[][] smoothGrid;
+    private double[] reals;
+    private double[] imags;
     private int maxIterations;
+    private MandelbrotKernel kernel = new MandelbrotScalarKernel();
+    private boolean boundaryTracing = false;
 
     public MandelbrotSet(int rows, int columns) {
         Objects.checkIndex(rows, MAX_ROWS + 1);
@@ -27,42 +55,104 @@ public class MandelbrotSet {
         this.rows = rows;
         this.columns = columns;
         this.grid = new int[rows][columns];
+        this.smoothGrid = new float[rows][columns];
+        this.reals = new double[columns];
+        this.imags = new double[rows];
+    }
+
+    public void setKernelType(MandelbrotKernelType kernelType) {
+        Objects.requireNonNull(kernelType);
+        this.kernel = switch (kernelType.isAvailable() ? kernelType : MandelbrotKernelType.SCALAR) {
+            case SCALAR -> new MandelbrotScalarKernel();
+            case VECTOR -> new MandelbrotVectorKernel();
+            case INTERIOR_SKIPPING -> new MandelbrotInteriorSkippingKernel();
+        };
+    }
+
+    public void setBoundaryTracing(boolean boundaryTracing) {
+        this.boundaryTracing = boundaryTracing;
     }
 
     public void reset() {
         for (int row = 0; row < this.rows; row++) {
             for (int column = 0; column < this.columns; column++) {
                 this.grid[row][column] = 0;
+                this.smoothGrid[row][column] = 0;
             }
         }
     }
 
     public void process(Complex from, Complex to, int maxIterations) {
+        this.setViewport(from, to, maxIterations);
+        this.process(0, 0, this.rows, this.columns);
+    }
+
+    public void process(int fromRow, int fromColumn, int toRow, int toColumn) {
+        this.process(fromRow, fromColumn, toRow, toColumn, () -> false);
+    }
+
+    // Stops early, leaving the rectangle partly computed, once "cancelled" holds; it is checked per row or per traced
+    // sub-rectangle
+    public void process(int fromRow, int fromColumn, int toRow, int toColumn, BooleanSupplier cancelled) {
+        Objects.requireNonNull(cancelled);
+        if (this.boundaryTracing) {
+            this.trace(fromRow, fromColumn, toRow, toColumn, cancelled);
+            return;
+        }
+        for (int row = fromRow; row < toRow && !cancelled.getAsBoolean(); row++) {
+            this.kernel.computeRow(this.reals, fromColumn, toColumn, this.imags[row], this.maxIterations, this.grid[row], this.smoothGrid[row]);
+        }
+    }
+
+    public void setViewport(Complex from, Complex to, int maxIterations) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
         this.maxIterations = maxIterations;
         double realRange = to.getReal() - from.getReal();
         double imagRange = to.getImag() - from.getImag();
         double realStep = realRange / this.columns;
         double imagStep = imagRange / this.rows;
 
+        double real = from.getReal();
+        for (int column = 0; column < this.columns; column++) {
+            this.reals[column] = real;
+            real += realStep;
+        }
+
         double imag = to.getImag();
         for (int row = 0; row < this.rows; row++) {
-            double real = from.getReal();
-            for (int column = 0; column < this.columns; column++) {
-                Complex complex = Complex.of(real, imag);
-                int value = computeComplex(complex, maxIterations);
-                this.grid[row][column] = value;
-                real += realStep;
-            }
+            this.imags[row] = imag;
             imag -= imagStep;
         }
     }
 
+    public void setPixelValue(int row, int column, int value) {
+        this.setPixelValue(row, column, value, value);
+    }
+
+    public void setPixelValue(int row, int column, int value, float smoothValue) {
+        Objects.checkIndex(row, this.rows);
+        Objects.checkIndex(column, this.columns);
+        this.grid[row][column] = value;
+        this.smoothGrid[row][column] = smoothValue;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
     public double getPixelValue(int row, int column) {
         Objects.checkIndex(row, this.rows);
         Objects.checkIndex(column, this.columns);
         return this.grid[row][column];
     }
 
+    public float getSmoothValue(int row, int column) {
+        Objects.checkIndex(row, this.rows);
+        Objects.checkIndex(column, this.columns);
+        return this.smoothGrid[row][column];
+    }
+
     public int getRows() {
         return rows;
     }
@@ -75,18 +165,607 @@ public class MandelbrotSet {
         return maxIterations;
     }
 
-    private int computeComplex(Complex complex, int maxIterations) {
-        Complex z = Complex.of(0, 0);
+    // Mariani-Silver: a rectangle whose border lies entirely inside the set is filled without computing its interior.
+    // A heuristic: the set is connected, so this is almost always right, but the sampled border can miss a thin
+    // filament of escaping points passing through the rectangle
+    private void trace(int fromRow, int fromColumn, int toRow, int toColumn, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        if (toRow - fromRow <= MIN_TRACED_SIZE || toColumn - fromColumn <= MIN_TRACED_SIZE) {
+            for (int row = fromRow; row < toRow; row++) {
+                this.kernel.computeRow(this.reals, fromColumn, toColumn, this.imags[row], this.maxIterations, this.grid[row], this.smoothGrid[row]);
+            }
+            return;
+        }
+        int lastRow = toRow - 1;
+        int lastColumn = toColumn - 1;
+        this.kernel.computeRow(this.reals, fromColumn, toColumn, this.imags[fromRow], this.maxIterations, this.grid[fromRow], this.smoothGrid[fromRow]);
+        this.kernel.computeRow(this.reals, fromColumn, toColumn, this.imags[lastRow], this.maxIterations, this.grid[lastRow], this.smoothGrid[lastRow]);
+        boolean inside = isInside(fromRow, fromColumn, toColumn) && isInside(lastRow, fromColumn, toColumn);
+        for (int row = fromRow + 1; row < lastRow; row++) {
+            this.kernel.computeRow(this.reals, fromColumn, fromColumn + 1, this.imags[row], this.maxIterations, this.grid[row], this.smoothGrid[row]);
+            this.kernel.computeRow(this.reals, lastColumn, toColumn, this.imags[row], this.maxIterations, this.grid[row], this.smoothGrid[row]);
+            inside &= this.grid[row][fromColumn] == this.maxIterations && this.grid[row][lastColumn] == this.maxIterations;
+        }
+        if (inside) {
+            for (int row = fromRow + 1; row < lastRow; row++) {
+                Arrays.fill(this.grid[row], fromColumn + 1, lastColumn, this.maxIterations);
+                Arrays.fill(this.smoothGrid[row], fromColumn + 1, lastColumn, this.maxIterations);
+            }
+            return;
+        }
+        int middleRow = (fromRow + 1 + lastRow) / 2;
+        int middleColumn = (fromColumn + 1 + lastColumn) / 2;
+        this.trace(fromRow + 1, fromColumn + 1, middleRow, middleColumn, cancelled);
+        this.trace(fromRow + 1, middleColumn, middleRow, lastColumn, cancelled);
+        this.trace(middleRow, fromColumn + 1, lastRow, middleColumn, cancelled);
+        this.trace(middleRow, middleColumn, lastRow, lastColumn, cancelled);
+    }
+
+    private boolean isInside(int row, int fromColumn, int toColumn) {
+        for (int column = fromColumn; column < toColumn; column++) {
+            if (this.grid[row][column] != this.maxIterations) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
+
+public interface MandelbrotKernel {
+    void computeRow(double[] reals, int fromColumn, int toColumn, double imag, int maxIterations, int[] target, float[] smoothTarget);
+
+    // Normalized iteration count: n + 1 - log2(log|z|), continuous across the escape bands
+    static float smooth(int iteration, double distanceSquared) {
+        return (float) (iteration + 1 - Math.log(Math.log(distanceSquared) / 2) / Math.log(2));
+    }
+}
+
+public enum MandelbrotKernelType {
+    SCALAR,
+    VECTOR,
+    INTERIOR_SKIPPING;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    public boolean isAvailable() {
+        return this != VECTOR || ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+}
+
+public class MandelbrotScalarKernel implements MandelbrotKernel {
+    private static final double ESCAPE_RADIUS_SQUARED = 4.0;
+
+    @Override
+    public void computeRow(double[] reals, int fromColumn, int toColumn, double imag, int maxIterations, int[] target, float[] smoothTarget) {
+        for (int column = fromColumn; column < toColumn; column++) {
+            computeComplex(reals[column], imag, maxIterations, target, smoothTarget, column);
+        }
+    }
+
+    private void computeComplex(double cReal, double cImag, int maxIterations, int[] target, float[] smoothTarget, int column) {
+        double zReal = 0;
+        double zImag = 0;
+        int iteration = 0;
+        while(iteration < maxIterations) {
+            double nextReal = (zReal * zReal) - (zImag * zImag) + cReal; // Formula: z^2 + c
+            zImag = (zReal * zImag) + (zImag * zReal) + cImag;
+            zReal = nextReal;
+            double distanceSquared = (zReal * zReal) + (zImag * zImag);
+            if (distanceSquared > ESCAPE_RADIUS_SQUARED) {
+                target[column] = iteration;
+                smoothTarget[column] = MandelbrotKernel.smooth(iteration, distanceSquared);
+                return;
+            }
+            iteration++;
+        }
+        target[column] = maxIterations;
+        smoothTarget[column] = maxIterations;
+    }
+}
+
+public class MandelbrotInteriorSkippingKernel implements MandelbrotKernel {
+    private static final double ESCAPE_RADIUS_SQUARED = 4.0;
+    private static final double PERIOD_TWO_BULB_RADIUS_SQUARED = 1.0 / 16;
+    private static final int MAX_PERIOD_CHECK_INTERVAL = 1 << 16;
+
+    @Override
+    public void computeRow(double[] reals, int fromColumn, int toColumn, double imag, int maxIterations, int[] target, float[] smoothTarget) {
+        for (int column = fromColumn; column < toColumn; column++) {
+            computeComplex(reals[column], imag, maxIterations, target, smoothTarget, column);
+        }
+    }
+
+    private void computeComplex(double cReal, double cImag, int maxIterations, int[] target, float[] smoothTarget, int column) {
+        target[column] = maxIterations;
+        smoothTarget[column] = maxIterations;
+        if (isInMainCardioid(cReal, cImag) || isInPeriodTwoBulb(cReal, cImag)) {
+            return;
+        }
+        double zReal = 0;
+        double zImag = 0;
+        double savedReal = 0;
+        double savedImag = 0;
+        int checkInterval = 1;
+        int sinceCheck = 0;
         int iteration = 0;
         while(iteration < maxIterations) {
-            z = z.mul(z).add(complex); // Formula: z^2 + c
-            double distance = Math.sqrt((z.getReal() * z.getReal()) + (z.getImag() * z.getImag()));
-            if (distance > 2) {
+            double nextReal = (zReal * zReal) - (zImag * zImag) + cReal; // Formula: z^2 + c
+            zImag = (zReal * zImag) + (zImag * zReal) + cImag;
+            zReal = nextReal;
+            double distanceSquared = (zReal * zReal) + (zImag * zImag);
+            if (distanceSquared > ESCAPE_RADIUS_SQUARED) {
+                target[column] = iteration;
+                smoothTarget[column] = MandelbrotKernel.smooth(iteration, distanceSquared);
+                return;
+            }
+            iteration++;
+            // Brent's cycle detection: an exactly repeated z can never escape
+            if (zReal == savedReal && zImag == savedImag) {
+                return;
+            }
+            if (++sinceCheck == checkInterval) {
+                sinceCheck = 0;
+                checkInterval = Math.min(checkInterval << 1, MAX_PERIOD_CHECK_INTERVAL);
+                savedReal = zReal;
+                savedImag = zImag;
+            }
+        }
+    }
+
+    private boolean isInMainCardioid(double cReal, double cImag) {
+        double x = cReal - 0.25;
+        double q = (x * x) + (cImag * cImag);
+        return q * (q + x) <= 0.25 * cImag * cImag;
+    }
+
+    private boolean isInPeriodTwoBulb(double cReal, double cImag) {
+        double x = cReal + 1;
+        return (x * x) + (cImag * cImag) <= PERIOD_TWO_BULB_RADIUS_SQUARED;
+    }
+}
+
+public class MandelbrotVectorKernel implements MandelbrotKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double ESCAPE_RADIUS_SQUARED = 4.0;
+
+    @Override
+    public void computeRow(double[] reals, int fromColumn, int toColumn, double imag, int maxIterations, int[] target, float[] smoothTarget) {
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        DoubleVector escapeRadiusSquared = DoubleVector.broadcast(SPECIES, ESCAPE_RADIUS_SQUARED);
+        DoubleVector cImag = DoubleVector.broadcast(SPECIES, imag);
+        double[] iterations = new double[SPECIES.length()];
+        double[] escapeDistances = new double[SPECIES.length()];
+        for (int column = fromColumn; column < toColumn; column += SPECIES.length()) {
+            VectorMask<Double> active = SPECIES.indexInRange(column, toColumn);
+            DoubleVector cReal = DoubleVector.fromArray(SPECIES, reals, column, active);
+            DoubleVector zReal = zero;
+            DoubleVector zImag = zero;
+            DoubleVector count = zero;
+            DoubleVector escapeDistance = zero;
+            for (int iteration = 0; iteration < maxIterations && active.anyTrue(); iteration++) {
+                DoubleVector nextReal = zReal.mul(zReal).sub(zImag.mul(zImag)).add(cReal); // Formula: z^2 + c
+                zImag = zReal.mul(zImag).add(zImag.mul(zReal)).add(cImag);
+                zReal = nextReal;
+                DoubleVector distanceSquared = zReal.mul(zReal).add(zImag.mul(zImag));
+                VectorMask<Double> escaped = active.and(distanceSquared.compare(VectorOperators.GT, escapeRadiusSquared));
+                escapeDistance = escapeDistance.blend(distanceSquared, escaped);
+                active = active.andNot(escaped);
+                count = count.add(one, active);
+            }
+            count.intoArray(iterations, 0);
+            escapeDistance.intoArray(escapeDistances, 0);
+            for (int lane = 0; lane < SPECIES.length() && column + lane < toColumn; lane++) {
+                int iteration = (int) iterations[lane];
+                target[column + lane] = iteration;
+                smoothTarget[column + lane] = iteration == maxIterations ? maxIterations : MandelbrotKernel.smooth(iteration, escapeDistances[lane]);
+            }
+        }
+    }
+}
+
+public class MandelbrotRenderer {
+    private static final int TILE_SIZE = 64;
+
+    private MandelbrotSet mandelbrotSet;
+    private ForkJoinPool pool;
+    private MandelbrotRender current;
+
+    public MandelbrotRenderer(MandelbrotSet mandelbrotSet, ForkJoinPool pool) {
+        this.mandelbrotSet = Objects.requireNonNull(mandelbrotSet);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public synchronized MandelbrotRender render(Complex from, Complex to, int maxIterations, Consumer<Rectangle> tileListener) {
+        Objects.requireNonNull(tileListener);
+        this.cancel();
+        this.mandelbrotSet.setViewport(from, to, maxIterations);
+        List<Rectangle> tiles = createTiles();
+        MandelbrotRender render = new MandelbrotRender(tiles.size());
+        for (Rectangle tile : tiles) {
+            this.pool.execute(() -> renderTile(render, tile, tileListener));
+        }
+        this.current = render;
+        return render;
+    }
+
+    public synchronized void cancel() {
+        if (this.current != null) {
+            this.current.cancel();
+            this.current.awaitTermination();
+            this.current = null;
+        }
+    }
+
+    private void renderTile(MandelbrotRender render, Rectangle tile, Consumer<Rectangle> tileListener) {
+        try {
+            // The whole tile at once, so boundary tracing can subdivide it
+            this.mandelbrotSet.process(tile.y, tile.x, tile.y + tile.height, tile.x + tile.width, render::isCancelled);
+            if (!render.isCancelled()) {
+                tileListener.accept(tile);
+            }
+        } finally {
+            render.tileCompleted();
+        }
+    }
+
+    private List<Rectangle> createTiles() {
+        int rows = this.mandelbrotSet.getRows();
+        int columns = this.mandelbrotSet.getColumns();
+        List<Rectangle> tiles = new ArrayList<>();
+        for (int row = 0; row < rows; row += TILE_SIZE) {
+            for (int column = 0; column < columns; column += TILE_SIZE) {
+                tiles.add(new Rectangle(column, row, Math.min(TILE_SIZE, columns - column), Math.min(TILE_SIZE, rows - row)));
+            }
+        }
+        tiles.sort(Comparator.comparingDouble(tile -> Point.distanceSq(tile.getCenterX(), tile.getCenterY(), columns / 2.0, rows / 2.0)));
+        return tiles;
+    }
+}
+
+public class MandelbrotRender {
+    private CountDownLatch remainingTiles;
+    private volatile boolean cancelled = false;
+
+    public MandelbrotRender(int tiles) {
+        this.remainingTiles = new CountDownLatch(tiles);
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return this.remainingTiles.getCount() == 0;
+    }
+
+    public void awaitTermination() {
+        try {
+            this.remainingTiles.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tileCompleted() {
+        this.remainingTiles.countDown();
+    }
+}
+
+public class MandelbrotExplorer {
+    private static final int TILE_SIZE = 64;
+    private static final int MAX_CACHED_TILES = 1024;
+    private static final int BASE_SCALE = 8;
+    private static final int MAX_ZOOM = 1000;
+    private static final double INITIAL_CENTER_REAL = -0.75;
+
+    private MandelbrotSet mandelbrotSet;
+    private ForkJoinPool pool;
+    private int maxIterations;
+    private Consumer<Rectangle> repaintListener;
+    private Map<MandelbrotTileKey, MandelbrotTile> cache;
+    private AtomicInteger currentJob = new AtomicInteger();
+    private volatile MandelbrotReferenceOrbit reference;
+    private int zoom = 0;
+    private BigInteger viewColumn;
+    private BigInteger viewRow;
+
+    public MandelbrotExplorer(MandelbrotSet mandelbrotSet, ForkJoinPool pool, int maxIterations, Consumer<Rectangle> repaintListener) {
+        this.mandelbrotSet = Objects.requireNonNull(mandelbrotSet);
+        this.pool = Objects.requireNonNull(pool);
+        this.maxIterations = maxIterations;
+        this.repaintListener = Objects.requireNonNull(repaintListener);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MandelbrotTileKey, MandelbrotTile> eldest) {
+                return size() > MAX_CACHED_TILES;
+            }
+        });
+        long centerColumn = Math.round(Math.scalb(INITIAL_CENTER_REAL, BASE_SCALE));
+        this.viewColumn = BigInteger.valueOf(centerColumn - mandelbrotSet.getColumns() / 2);
+        this.viewRow = BigInteger.valueOf(-mandelbrotSet.getRows() / 2);
+    }
+
+    public void pan(int columns, int rows) {
+        this.viewColumn = this.viewColumn.add(BigInteger.valueOf(columns));
+        this.viewRow = this.viewRow.add(BigInteger.valueOf(rows));
+        this.update();
+    }
+
+    public void zoomIn(int column, int row) {
+        if (this.zoom == MAX_ZOOM) {
+            return;
+        }
+        this.zoom++;
+        this.viewColumn = this.viewColumn.add(BigInteger.valueOf(column)).shiftLeft(1).subtract(BigInteger.valueOf(column));
+        this.viewRow = this.viewRow.add(BigInteger.valueOf(row)).shiftLeft(1).subtract(BigInteger.valueOf(row));
+        this.update();
+    }
+
+    public void zoomOut(int column, int row) {
+        if (this.zoom == 0) {
+            return;
+        }
+        this.zoom--;
+        this.viewColumn = this.viewColumn.add(BigInteger.valueOf(column)).shiftRight(1).subtract(BigInteger.valueOf(column));
+        this.viewRow = this.viewRow.add(BigInteger.valueOf(row)).shiftRight(1).subtract(BigInteger.valueOf(row));
+        this.update();
+    }
+
+    public void update() {
+        int job = this.currentJob.incrementAndGet();
+        int zoom = this.zoom;
+        BigInteger viewColumn = this.viewColumn;
+        BigInteger viewRow = this.viewRow;
+        BigInteger centerColumn = viewColumn.add(BigInteger.valueOf(this.mandelbrotSet.getColumns() / 2));
+        BigInteger centerRow = viewRow.add(BigInteger.valueOf(this.mandelbrotSet.getRows() / 2));
+        BigInteger tileSize = BigInteger.valueOf(TILE_SIZE);
+        BigInteger firstTileColumn = floorDiv(viewColumn, tileSize);
+        BigInteger firstTileRow = floorDiv(viewRow, tileSize);
+        BigInteger lastTileColumn = floorDiv(viewColumn.add(BigInteger.valueOf(this.mandelbrotSet.getColumns() - 1)), tileSize);
+        BigInteger lastTileRow = floorDiv(viewRow.add(BigInteger.valueOf(this.mandelbrotSet.getRows() - 1)), tileSize);
+
+        this.mandelbrotSet.setMaxIterations(this.maxIterations);
+        List<MandelbrotTileKey> missing = new ArrayList<>();
+        for (BigInteger tileRow = firstTileRow; tileRow.compareTo(lastTileRow) <= 0; tileRow = tileRow.add(BigInteger.ONE)) {
+            for (BigInteger tileColumn = firstTileColumn; tileColumn.compareTo(lastTileColumn) <= 0; tileColumn = tileColumn.add(BigInteger.ONE)) {
+                MandelbrotTileKey key = new MandelbrotTileKey(zoom, tileColumn, tileRow, this.maxIterations);
+                MandelbrotTile tile = this.cache.get(key);
+                if (tile == null) {
+                    missing.add(key);
+                }
+                blit(key, tile, viewColumn, viewRow);
+            }
+        }
+        this.repaintListener.accept(new Rectangle(0, 0, this.mandelbrotSet.getColumns(), this.mandelbrotSet.getRows()));
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        missing.sort(Comparator.comparing(key -> distanceSquared(key, centerColumn, centerRow)));
+        this.pool.execute(() -> {
+            MandelbrotReferenceOrbit reference = this.reference;
+            if (reference == null || reference.getZoom() != zoom || reference.getMaxIterations() != this.maxIterations) {
+                reference = MandelbrotReferenceOrbit.compute(zoom, BASE_SCALE, centerColumn, centerRow, this.maxIterations);
+                this.reference = reference;
+            }
+            MandelbrotReferenceOrbit orbit = reference;
+            for (MandelbrotTileKey key : missing) {
+                this.pool.execute(() -> this.computeTile(job, key, orbit, viewColumn, viewRow));
+            }
+        });
+    }
+
+    private void computeTile(int job, MandelbrotTileKey key, MandelbrotReferenceOrbit reference, BigInteger viewColumn, BigInteger viewRow) {
+        MandelbrotTile tile = new MandelbrotTile(new int[TILE_SIZE * TILE_SIZE], new float[TILE_SIZE * TILE_SIZE]);
+        double pixelSize = Math.scalb(1.0, -(BASE_SCALE + key.zoom()));
+        BigInteger tileSize = BigInteger.valueOf(TILE_SIZE);
+        double firstDeltaColumn = key.tileColumn().multiply(tileSize).subtract(reference.getCenterColumn()).doubleValue();
+        double firstDeltaRow = key.tileRow().multiply(tileSize).subtract(reference.getCenterRow()).doubleValue();
+        for (int row = 0; row < TILE_SIZE; row++) {
+            if (this.currentJob.get() != job) {
+                return;
+            }
+            double deltaImag = -(firstDeltaRow + row) * pixelSize;
+            for (int column = 0; column < TILE_SIZE; column++) {
+                double deltaReal = (firstDeltaColumn + column) * pixelSize;
+                reference.computePixel(deltaReal, deltaImag, key.maxIterations(), tile, row * TILE_SIZE + column);
+            }
+        }
+        this.cache.put(key, tile);
+        SwingUtilities.invokeLater(() -> {
+            if (this.currentJob.get() == job) {
+                this.repaintListener.accept(blit(key, tile, viewColumn, viewRow));
+            }
+        });
+    }
+
+    private Rectangle blit(MandelbrotTileKey key, MandelbrotTile tile, BigInteger viewColumn, BigInteger viewRow) {
+        int originColumn = key.tileColumn().multiply(BigInteger.valueOf(TILE_SIZE)).subtract(viewColumn).intValueExact();
+        int originRow = key.tileRow().multiply(BigInteger.valueOf(TILE_SIZE)).subtract(viewRow).intValueExact();
+        Rectangle bounds = new Rectangle(originColumn, originRow, TILE_SIZE, TILE_SIZE)
+                .intersection(new Rectangle(0, 0, this.mandelbrotSet.getColumns(), this.mandelbrotSet.getRows()));
+        for (int row = bounds.y; row < bounds.y + bounds.height; row++) {
+            for (int column = bounds.x; column < bounds.x + bounds.width; column++) {
+                int index = (row - originRow) * TILE_SIZE + (column - originColumn);
+                if (tile == null) {
+                    this.mandelbrotSet.setPixelValue(row, column, 0);
+                } else {
+                    this.mandelbrotSet.setPixelValue(row, column, tile.iterations()[index], tile.smoothValues()[index]);
+                }
+            }
+        }
+        return bounds;
+    }
+
+    private static BigInteger distanceSquared(MandelbrotTileKey key, BigInteger centerColumn, BigInteger centerRow) {
+        BigInteger halfTile = BigInteger.valueOf(TILE_SIZE / 2);
+        BigInteger deltaColumn = key.tileColumn().multiply(BigInteger.valueOf(TILE_SIZE)).add(halfTile).subtract(centerColumn);
+        BigInteger deltaRow = key.tileRow().multiply(BigInteger.valueOf(TILE_SIZE)).add(halfTile).subtract(centerRow);
+        return deltaColumn.multiply(deltaColumn).add(deltaRow.multiply(deltaRow));
+    }
+
+    private static BigInteger floorDiv(BigInteger dividend, BigInteger divisor) {
+        BigInteger[] result = dividend.divideAndRemainder(divisor);
+        return result[1].signum() < 0 ? result[0].subtract(BigInteger.ONE) : result[0];
+    }
+}
+
+public record MandelbrotTileKey(int zoom, BigInteger tileColumn, BigInteger tileRow, int maxIterations) {}
+
+public record MandelbrotTile(int[] iterations, float[] smoothValues) {}
+
+public static class MandelbrotReferenceOrbit {
+    private static final double ESCAPE_RADIUS_SQUARED = 4.0;
+    private static final BigDecimal ESCAPE_RADIUS_SQUARED_DECIMAL = BigDecimal.valueOf(4);
+    private static final int EXTRA_DIGITS = 20;
+    private static final double DIGITS_PER_BIT = Math.log10(2);
+
+    private int zoom;
+    private int maxIterations;
+    private BigInteger centerColumn;
+    private BigInteger centerRow;
+    private double[] reals;
+    private double[] imags;
+
+    private MandelbrotReferenceOrbit(int zoom, int maxIterations, BigInteger centerColumn, BigInteger centerRow, double[] reals, double[] imags) {
+        this.zoom = zoom;
+        this.maxIterations = maxIterations;
+        this.centerColumn = centerColumn;
+        this.centerRow = centerRow;
+        this.reals = reals;
+        this.imags = imags;
+    }
+
+    public static MandelbrotReferenceOrbit compute(int zoom, int baseScale, BigInteger centerColumn, BigInteger centerRow, int maxIterations) {
+        int scale = baseScale + zoom;
+        MathContext mathContext = new MathContext((int) Math.ceil(scale * DIGITS_PER_BIT) + EXTRA_DIGITS);
+        BigDecimal cReal = new BigDecimal(centerColumn).divide(BigDecimal.TWO.pow(scale));
+        BigDecimal cImag = new BigDecimal(centerRow.negate()).divide(BigDecimal.TWO.pow(scale));
+        int length = Math.max(2, maxIterations + 1);
+        double[] reals = new double[length];
+        double[] imags = new double[length];
+        BigDecimal zReal = BigDecimal.ZERO;
+        BigDecimal zImag = BigDecimal.ZERO;
+        int size = 1;
+        while (size < length) {
+            BigDecimal nextReal = zReal.multiply(zReal, mathContext).subtract(zImag.multiply(zImag, mathContext), mathContext).add(cReal, mathContext);
+            zImag = zReal.multiply(zImag, mathContext).multiply(BigDecimal.TWO, mathContext).add(cImag, mathContext);
+            zReal = nextReal;
+            reals[size] = zReal.doubleValue();
+            imags[size] = zImag.doubleValue();
+            size++;
+            BigDecimal distanceSquared = zReal.multiply(zReal, mathContext).add(zImag.multiply(zImag, mathContext), mathContext);
+            if (distanceSquared.compareTo(ESCAPE_RADIUS_SQUARED_DECIMAL) > 0) {
                 break;
             }
+        }
+        return new MandelbrotReferenceOrbit(zoom, maxIterations, centerColumn, centerRow, Arrays.copyOf(reals, size), Arrays.copyOf(imags, size));
+    }
+
+    public void computePixel(double deltaCReal, double deltaCImag, int maxIterations, MandelbrotTile tile, int index) {
+        double deltaReal = 0;
+        double deltaImag = 0;
+        int referenceIteration = 0;
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            double referenceReal = this.reals[referenceIteration];
+            double referenceImag = this.imags[referenceIteration];
+            double nextReal = 2 * (referenceReal * deltaReal - referenceImag * deltaImag) + deltaReal * deltaReal - deltaImag * deltaImag + deltaCReal;
+            deltaImag = 2 * (referenceReal * deltaImag + referenceImag * deltaReal) + 2 * deltaReal * deltaImag + deltaCImag;
+            deltaReal = nextReal;
+            referenceIteration++;
+            double zReal = this.reals[referenceIteration] + deltaReal;
+            double zImag = this.imags[referenceIteration] + deltaImag;
+            double distanceSquared = zReal * zReal + zImag * zImag;
+            if (distanceSquared > ESCAPE_RADIUS_SQUARED) {
+                tile.iterations()[index] = iteration;
+                tile.smoothValues()[index] = MandelbrotKernel.smooth(iteration, distanceSquared);
+                return;
+            }
             iteration++;
+            // Rebase when the orbit gets closer to 0 than to the reference, or the reference runs out
+            if (distanceSquared < deltaReal * deltaReal + deltaImag * deltaImag || referenceIteration == this.reals.length - 1) {
+                deltaReal = zReal;
+                deltaImag = zImag;
+                referenceIteration = 0;
+            }
+        }
+        tile.iterations()[index] = maxIterations;
+        tile.smoothValues()[index] = maxIterations;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public BigInteger getCenterColumn() {
+        return centerColumn;
+    }
+
+    public BigInteger getCenterRow() {
+        return centerRow;
+    }
+}
+
+public class MandelbrotBenchmark {
+    private static final int ROWS = 600;
+    private static final int COLUMNS = 800;
+    private static final int MAX_ITERATIONS = 1000;
+    private static final int RUNS = 5;
+
+    public void run() {
+        for (MandelbrotKernelType kernelType : MandelbrotKernelType.values()) {
+            if (!kernelType.isAvailable()) {
+                IO.println(kernelType + ": not available");
+                continue;
+            }
+            MandelbrotSet mandelbrotSet = new MandelbrotSet(ROWS, COLUMNS);
+            mandelbrotSet.setKernelType(kernelType);
+            mandelbrotSet.process(MandelbrotSet.VIEWPORT_MIN, MandelbrotSet.VIEWPORT_MAX, MAX_ITERATIONS);
+            long start = System.nanoTime();
+            for (int run = 0; run < RUNS; run++) {
+                mandelbrotSet.process(MandelbrotSet.VIEWPORT_MIN, MandelbrotSet.VIEWPORT_MAX, MAX_ITERATIONS);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            IO.println(String.format("%s: %.0f pixels/sec", kernelType, (double) ROWS * COLUMNS * RUNS / seconds));
+        }
+    }
+
+    public void runInteriorSkipping() {
+        for (int maxIterations : new int[] {1_000, 10_000, 100_000}) {
+            MandelbrotSet bruteForce = new MandelbrotSet(ROWS / 4, COLUMNS / 4);
+            MandelbrotSet optimized = new MandelbrotSet(ROWS / 4, COLUMNS / 4);
+            optimized.setKernelType(MandelbrotKernelType.INTERIOR_SKIPPING);
+            optimized.setBoundaryTracing(true);
+            long bruteForceNanos = time(bruteForce, maxIterations);
+            long optimizedNanos = time(optimized, maxIterations);
+            int mismatches = 0;
+            for (int row = 0; row < bruteForce.getRows(); row++) {
+                for (int column = 0; column < bruteForce.getColumns(); column++) {
+                    mismatches += bruteForce.getPixelValue(row, column) != optimized.getPixelValue(row, column) ? 1 : 0;
+                }
+            }
+            IO.println(String.format("%d iterations: brute force %d ms | optimized %d ms | speedup %.1fx | mismatches %d",
+                    maxIterations, bruteForceNanos / 1_000_000, optimizedNanos / 1_000_000,
+                    (double) bruteForceNanos / optimizedNanos, mismatches));
         }
-        return iteration;
+    }
+
+    private long time(MandelbrotSet mandelbrotSet, int maxIterations) {
+        long start = System.nanoTime();
+        mandelbrotSet.process(MandelbrotSet.VIEWPORT_MIN, MandelbrotSet.VIEWPORT_MAX, maxIterations);
+        return System.nanoTime() - start;
     }
 }
 
@@ -133,35 +812,346 @@ public static class Complex {
 
 public class MandelbrotSetFrame extends JFrame {
     private MandelbrotSet mandelbrotSet;
+    private MandelbrotSetPanel panel;
+    private MandelbrotRenderer renderer;
 
     public MandelbrotSetFrame(MandelbrotSet mandelbrotSet) {
         this.mandelbrotSet = mandelbrotSet;
+        this.panel = new MandelbrotSetPanel(mandelbrotSet);
+        this.renderer = new MandelbrotRenderer(mandelbrotSet, ForkJoinPool.commonPool());
         this.setTitle("Mandelbrot Set");
         this.setSize(mandelbrotSet.getColumns(), mandelbrotSet.getRows());
         this.setLocationRelativeTo(null);
         this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         this.setResizable(false);
-        this.add(new MandelbrotSetPanel(mandelbrotSet));
+        this.add(this.panel);
         this.setVisible(true);
     }
+
+    public void render(Complex from, Complex to, int maxIterations) {
+        this.renderer.render(from, to, maxIterations, tile -> SwingUtilities.invokeLater(() -> this.panel.refresh(tile)));
+    }
+
+    public void explore(int maxIterations) {
+        this.renderer.cancel();
+        MandelbrotExplorer explorer = new MandelbrotExplorer(this.mandelbrotSet, ForkJoinPool.commonPool(), maxIterations, this.panel::refresh);
+        MandelbrotExplorerMouseListener listener = new MandelbrotExplorerMouseListener(explorer);
+        this.panel.addMouseListener(listener);
+        this.panel.addMouseMotionListener(listener);
+        this.panel.addMouseWheelListener(listener);
+        explorer.update();
+    }
+}
+
+public class MandelbrotExplorerMouseListener extends MouseAdapter {
+    private MandelbrotExplorer explorer;
+    private Point dragStart;
+
+    public MandelbrotExplorerMouseListener(MandelbrotExplorer explorer) {
+        this.explorer = explorer;
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        this.dragStart = e.getPoint();
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        if (this.dragStart == null) {
+            return;
+        }
+        this.explorer.pan(this.dragStart.x - e.getX(), this.dragStart.y - e.getY());
+        this.dragStart = e.getPoint();
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        this.dragStart = null;
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.getWheelRotation() < 0) {
+            this.explorer.zoomIn(e.getX(), e.getY());
+        } else if (e.getWheelRotation() > 0) {
+            this.explorer.zoomOut(e.getX(), e.getY());
+        }
+    }
 }
 
 public class MandelbrotSetPanel extends JPanel {
     private MandelbrotSet mandelbrotSet;
+    private MandelbrotPalette palette = MandelbrotPalette.SMOOTH;
+    private BufferedImage image;
+    private int[] pixels;
 
     public MandelbrotSetPanel(MandelbrotSet mandelbrotSet) {
         this.mandelbrotSet = mandelbrotSet;
+        this.image = new BufferedImage(mandelbrotSet.getColumns(), mandelbrotSet.getRows(), BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+    }
+
+    public void setPalette(MandelbrotPalette palette) {
+        this.palette = Objects.requireNonNull(palette);
+        this.refresh(new Rectangle(0, 0, this.mandelbrotSet.getColumns(), this.mandelbrotSet.getRows()));
+    }
+
+    public void refresh(Rectangle region) {
+        Rectangle bounds = region.intersection(new Rectangle(0, 0, this.mandelbrotSet.getColumns(), this.mandelbrotSet.getRows()));
+        this.palette.paint(this.mandelbrotSet, bounds, this.pixels);
+        this.repaint(bounds);
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        for (int row = 0; row < this.mandelbrotSet.getRows(); row++) {
-            for (int column = 0; column < this.mandelbrotSet.getColumns(); column++) {
-                double value = this.mandelbrotSet.getPixelValue(row, column);
-                g.setColor(value == this.mandelbrotSet.getMaxIterations() ? Color.BLACK : Color.WHITE);
-                g.fillRect(column, row, 1, 1);
+        g.drawImage(this.image, 0, 0, null);
+    }
+}
+
+public static class MandelbrotPalette {
+    public static final MandelbrotPalette SMOOTH = new MandelbrotPalette(Color.BLACK, 32,
+            new Color(0, 7, 100), new Color(32, 107, 203), new Color(237, 255, 255), new Color(255, 170, 0), new Color(0, 2, 0));
+    public static final MandelbrotPalette BLACK_AND_WHITE = new MandelbrotPalette(Color.BLACK, 1, Color.WHITE);
+
+    private static final int SIZE = 1024;
+
+    private int insideColor;
+    private int[] colors = new int[SIZE];
+    private float entriesPerIteration;
+
+    public MandelbrotPalette(Color insideColor, int iterationsPerCycle, Color... stops) {
+        Objects.requireNonNull(insideColor);
+        if (iterationsPerCycle <= 0 || stops.length == 0) {
+            throw new IllegalArgumentException("Invalid palette");
+        }
+        this.insideColor = insideColor.getRGB();
+        this.entriesPerIteration = (float) SIZE / iterationsPerCycle;
+        // The gradient wraps around, so the last stop blends back into the first one
+        for (int index = 0; index < SIZE; index++) {
+            float position = (float) index * stops.length / SIZE;
+            Color from = stops[(int) position];
+            Color to = stops[((int) position + 1) % stops.length];
+            float weight = position - (int) position;
+            this.colors[index] = new Color(
+                    Math.round(from.getRed() + (to.getRed() - from.getRed()) * weight),
+                    Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * weight),
+                    Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * weight)).getRGB();
+        }
+    }
+
+    public int getColor(int iteration, float smoothValue, int maxIterations) {
+        if (iteration >= maxIterations) {
+            return this.insideColor;
+        }
+        return this.colors[Math.floorMod((int) (smoothValue * this.entriesPerIteration), SIZE)];
+    }
+
+    public void paint(MandelbrotSet mandelbrotSet, Rectangle region, int[] pixels) {
+        int maxIterations = mandelbrotSet.getMaxIterations();
+        for (int row = region.y; row < region.y + region.height; row++) {
+            int[] values = mandelbrotSet.grid[row];
+            float[] smoothValues = mandelbrotSet.smoothGrid[row];
+            int offset = row * mandelbrotSet.getColumns();
+            for (int column = region.x; column < region.x + region.width; column++) {
+                pixels[offset + column] = this.getColor(values[column], smoothValues[column], maxIterations);
             }
         }
     }
-}
\ No newline at end of file
+}
+
+public class MandelbrotBatchRenderer {
+    private static final long FAILURE_CHECK_MILLIS = 100;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private MandelbrotSet mandelbrotSet;
+    private MandelbrotRenderer renderer;
+    private MandelbrotPalette palette;
+    private Path directory;
+    private int encoders = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    public MandelbrotBatchRenderer(MandelbrotSet mandelbrotSet, MandelbrotPalette palette, Path directory) {
+        this.mandelbrotSet = Objects.requireNonNull(mandelbrotSet);
+        this.renderer = new MandelbrotRenderer(mandelbrotSet, ForkJoinPool.commonPool());
+        this.palette = Objects.requireNonNull(palette);
+        this.directory = Objects.requireNonNull(directory);
+    }
+
+    public void setEncoders(int encoders) {
+        if (encoders <= 0) {
+            throw new IllegalArgumentException("Invalid encoder quantity: " + encoders);
+        }
+        this.encoders = encoders;
+    }
+
+    public void renderZoom(Complex center, double initialWidth, double zoomPerFrame, int frames, int maxIterations) {
+        Objects.requireNonNull(center);
+        int rows = this.mandelbrotSet.getRows();
+        int columns = this.mandelbrotSet.getColumns();
+        Rectangle bounds = new Rectangle(0, 0, columns, rows);
+        BlockingQueue<MandelbrotBatchFrame> frameQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<int[]> freeBuffers = new ArrayBlockingQueue<>(QUEUE_CAPACITY + this.encoders + 1);
+        for (int buffer = 0; buffer < QUEUE_CAPACITY + this.encoders + 1; buffer++) {
+            freeBuffers.add(new int[rows * columns]);
+        }
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.encoders);
+        try {
+            Files.createDirectories(this.directory);
+            for (int encoder = 0; encoder < this.encoders; encoder++) {
+                executor.execute(() -> encode(frameQueue, freeBuffers, columns, rows, failure));
+            }
+            // Compute the next frame in parallel tiles while the encoders compress the previous ones
+            double width = initialWidth;
+            for (int frame = 0; frame < frames && failure.get() == null; frame++) {
+                double height = width * rows / columns;
+                Complex from = Complex.of(center.getReal() - width / 2, center.getImag() - height / 2);
+                Complex to = Complex.of(center.getReal() + width / 2, center.getImag() + height / 2);
+                this.renderer.render(from, to, maxIterations, tile -> {}).awaitTermination();
+                int[] pixels = take(freeBuffers, failure);
+                if (pixels == null) {
+                    break;
+                }
+                this.palette.paint(this.mandelbrotSet, bounds, pixels);
+                put(frameQueue, failure, new MandelbrotBatchFrame(frame, pixels));
+                width /= zoomPerFrame;
+            }
+            for (int encoder = 0; encoder < this.encoders && failure.get() == null; encoder++) {
+                put(frameQueue, failure, MandelbrotBatchFrame.END);
+            }
+            // After a failure the encoders get no end marker, so they are interrupted by shutdownNow instead
+            if (failure.get() == null) {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            // A cancelled batch must not look like a finished one
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException(failure.get());
+        }
+    }
+
+    // Blocking queue operations that give up once an encoder failed, so the producer cannot wait forever on them
+    private <E> E take(BlockingQueue<E> queue, AtomicReference<Exception> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            E element = queue.poll(FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private <E> void put(BlockingQueue<E> queue, AtomicReference<Exception> failure, E element) throws InterruptedException {
+        while (failure.get() == null && !queue.offer(element, FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            // Retry until there is room or an encoder failed
+        }
+    }
+
+    private void encode(BlockingQueue<MandelbrotBatchFrame> frameQueue, BlockingQueue<int[]> freeBuffers, int width, int height, AtomicReference<Exception> failure) {
+        MandelbrotPngEncoder encoder = new MandelbrotPngEncoder();
+        try {
+            for (MandelbrotBatchFrame frame = frameQueue.take(); frame != MandelbrotBatchFrame.END; frame = frameQueue.take()) {
+                Path file = this.directory.resolve(String.format("frame-%05d.png", frame.index()));
+                try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    encoder.encode(output, width, height, frame.pixels());
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                freeBuffers.put(frame.pixels());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+public record MandelbrotBatchFrame(int index, int[] pixels) {
+    private static final MandelbrotBatchFrame END = new MandelbrotBatchFrame(-1, new int[0]);
+}
+
+public static class MandelbrotPngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int FILTER_SUB = 1;
+    private static final int BYTES_PER_PIXEL = 3;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private CRC32 crc = new CRC32();
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private byte[] scanline = new byte[0];
+
+    public void encode(OutputStream output, int width, int height, int[] pixels) throws IOException {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+        }
+        DataOutputStream data = new DataOutputStream(output);
+        data.write(SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) BIT_DEPTH).put((byte) COLOR_TYPE_RGB).put((byte) 0).put((byte) 0).put((byte) 0);
+        this.writeChunk(data, "IHDR", header.array(), header.position());
+
+        if (this.scanline.length != 1 + width * BYTES_PER_PIXEL) {
+            this.scanline = new byte[1 + width * BYTES_PER_PIXEL];
+        }
+        this.deflater.reset();
+        this.chunkLength = 0;
+        for (int row = 0; row < height; row++) {
+            // Sub filter: each byte stores the difference to the same channel of the pixel on its left
+            this.scanline[0] = FILTER_SUB;
+            int previous = 0;
+            for (int column = 0; column < width; column++) {
+                int pixel = pixels[row * width + column];
+                int index = 1 + column * BYTES_PER_PIXEL;
+                this.scanline[index] = (byte) ((pixel >> 16) - (previous >> 16));
+                this.scanline[index + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+                this.scanline[index + 2] = (byte) (pixel - previous);
+                previous = pixel;
+            }
+            this.deflater.setInput(this.scanline);
+            while (!this.deflater.needsInput()) {
+                this.deflateChunk(data);
+            }
+        }
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            this.deflateChunk(data);
+        }
+        if (this.chunkLength > 0) {
+            this.writeChunk(data, "IDAT", this.chunk, this.chunkLength);
+        }
+        this.writeChunk(data, "IEND", this.chunk, 0);
+        data.flush();
+    }
+
+    // IDAT chunks are written as soon as the compressed buffer fills, so the encoded image is never held in memory
+    private void deflateChunk(DataOutputStream data) throws IOException {
+        this.chunkLength += this.deflater.deflate(this.chunk, this.chunkLength, CHUNK_SIZE - this.chunkLength);
+        if (this.chunkLength == CHUNK_SIZE) {
+            this.writeChunk(data, "IDAT", this.chunk, CHUNK_SIZE);
+            this.chunkLength = 0;
+        }
+    }
+
+    private void writeChunk(DataOutputStream data, String type, byte[] bytes, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        this.crc.reset();
+        this.crc.update(typeBytes);
+        this.crc.update(bytes, 0, length);
+        data.writeInt(length);
+        data.write(typeBytes);
+        data.write(bytes, 0, length);
+        data.writeInt((int) this.crc.getValue());
+    }
+}
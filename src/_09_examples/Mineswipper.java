@@ -1,175 +1,923 @@
 import javax.swing.*;
-import javax.swing.plaf.metal.MetalButtonUI;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
 
 void main() {
+    if (GraphicsEnvironment.isHeadless()) {
+        new MinesweeperBenchmark().run(1000);
+        return;
+    }
     SwingUtilities.invokeLater(() -> {
         new MinesweeperFrame(10, 10, 20);
     });
 }
 
-public class MinesweeperFrame extends JFrame {
-    private final String TITLE = "Minesweeper (Mines: %s / Flags: %s)";
-    private final int MAX_WIDTH = 10;
-    private final int MAX_HEIGHT = 10;
-    private final int BUTTON_WIDTH = 45;
-    private final int BUTTON_HEIGHT = 45;
+public class MinesweeperBoard {
+    private static final int MAX_WIDTH = 5000;
+    private static final int MAX_HEIGHT = 5000;
+    private static final MinesweeperButtonMark[] MARKS = MinesweeperButtonMark.values();
 
     private int width;
     private int height;
     private int minesQuantity;
-    private int visitedTilesQuantity = 0;
+    private int revealedQuantity = 0;
     private int flagsQuantity = 0;
-    private int tilesQuantity = 0;
-    private MinesweeperTile[][] field;
-    private List<MinesweeperTile> tiles = new ArrayList<>();
+    private MinesweeperStatus status = MinesweeperStatus.PLAYING;
+    private RandomGenerator random;
+    private boolean firstClickSafe = false;
+    private boolean generated = false;
+    private int[] cells;
+    private boolean[] mines;
+    private byte[] counts;
+    private boolean[] revealed;
+    private byte[] marks;
+    private int[] queue;
+
+    public MinesweeperBoard(int width, int height, int minesQuantity) {
+        this(width, height, minesQuantity, new Random());
+    }
 
-    public MinesweeperFrame(int width, int height, int minesQuantity) {
-        validateProperties(width, height, minesQuantity);
+    public MinesweeperBoard(int width, int height, int minesQuantity, RandomGenerator random) {
+        Objects.checkIndex(width, MAX_WIDTH + 1);
+        Objects.checkIndex(height, MAX_HEIGHT + 1);
+        Objects.checkIndex(minesQuantity, width * height);
         this.width = width;
         this.height = height;
         this.minesQuantity = minesQuantity;
-        this.tilesQuantity = width * height;
-        this.setSize(this.width * this.BUTTON_WIDTH, this.height * this.BUTTON_WIDTH);
-        this.setLocationRelativeTo(null);
-        this.setResizable(false);
-        this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-        this.setLayout(new GridLayout(width, height));
-        this.createField();
+        this.random = Objects.requireNonNull(random);
+        this.cells = new int[width * height];
+        for (int cell = 0; cell < this.cells.length; cell++) {
+            this.cells[cell] = cell;
+        }
+        this.mines = new boolean[width * height];
+        this.counts = new byte[width * height];
+        this.revealed = new boolean[width * height];
+        this.marks = new byte[width * height];
+        this.queue = new int[width * height];
         this.reset();
-        this.refreshTitle();
-        this.setVisible(true);
     }
 
-    private void validateProperties(int width, int height, int minesQuantity) {
-        Objects.checkIndex(width, MAX_WIDTH + 1);
-        Objects.checkIndex(height, MAX_HEIGHT + 1);
-        Objects.checkIndex(minesQuantity, width * height);
+    public void reset() {
+        this.revealedQuantity = 0;
+        this.flagsQuantity = 0;
+        this.status = MinesweeperStatus.PLAYING;
+        Arrays.fill(this.mines, false);
+        Arrays.fill(this.revealed, false);
+        Arrays.fill(this.marks, (byte) MinesweeperButtonMark.NONE.ordinal());
+        Arrays.fill(this.counts, (byte) 0);
+        this.generated = false;
+        if (!this.firstClickSafe) {
+            this.generate(-1);
+        }
     }
 
-    private void refreshTitle() {
-        this.setTitle(String.format(TITLE, this.minesQuantity, this.flagsQuantity));
+    // When enabled, mines are placed on the first reveal, away from the revealed cell and its neighbours when there is room
+    public void setFirstClickSafe(boolean firstClickSafe) {
+        this.firstClickSafe = firstClickSafe;
+        this.reset();
+    }
+
+    public boolean isFirstClickSafe() {
+        return firstClickSafe;
     }
 
-    private void createField() {
-        this.field = new MinesweeperTile[this.width][this.height];
-        for (int x = 0; x < this.width; x++) {
-            for (int y = 0; y < this.height; y++) {
-                MinesweeperTile tile = new MinesweeperTile(x, y);
-                tile.addMouseListener(new ButtonMouseListener());
-                this.add(tile);
-                this.tiles.add(tile);
-                this.field[x][y] = tile;
+    // Flood reveal with an explicit queue: each cell is enqueued at most once, so the cascade is linear and stack-safe
+    public MinesweeperStatus reveal(int x, int y) {
+        Objects.checkIndex(x, this.width);
+        Objects.checkIndex(y, this.height);
+        int index = y * this.width + x;
+        if (this.status != MinesweeperStatus.PLAYING || this.revealed[index]) {
+            return this.status;
+        }
+        if (!this.generated) {
+            this.generate(index);
+        }
+        this.open(index);
+        if (this.mines[index]) {
+            this.status = MinesweeperStatus.LOST;
+            return this.status;
+        }
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = index;
+        while (head < tail) {
+            int cell = this.queue[head++];
+            if (this.counts[cell] != 0) {
+                continue;
+            }
+            int cellX = cell % this.width;
+            int cellY = cell / this.width;
+            for (int neighborY = Math.max(cellY - 1, 0); neighborY <= Math.min(cellY + 1, this.height - 1); neighborY++) {
+                for (int neighborX = Math.max(cellX - 1, 0); neighborX <= Math.min(cellX + 1, this.width - 1); neighborX++) {
+                    int neighbor = neighborY * this.width + neighborX;
+                    if (!this.revealed[neighbor]) {
+                        this.open(neighbor);
+                        this.queue[tail++] = neighbor;
+                    }
+                }
             }
         }
+        if (this.revealedQuantity == this.width * this.height - this.minesQuantity) {
+            this.status = MinesweeperStatus.WON;
+        }
+        return this.status;
     }
 
-    private void reset() {
-        this.flagsQuantity = 0;
-        this.visitedTilesQuantity = 0;
-        tiles.stream().forEach(MinesweeperTile::reset);
-        Collections.shuffle(tiles);
-        tiles.stream().limit(this.minesQuantity).forEach(x -> x.setMine(true));
-        tiles.stream().skip(this.minesQuantity).forEach(this::computeTileValue);
-    }
-
-    private void computeTileValue(MinesweeperTile tile) {
-        int x = tile.getFieldX();
-        int y = tile.getFieldY();
-        List<MinesweeperTile> neighbors = getNeighbors(x, y);
-        int neighborsMinesCount = countMineTiles(neighbors);
-        tile.setValue(neighborsMinesCount);
-    }
-
-    private List<MinesweeperTile> getNeighbors(int x, int y) {
-        List<MinesweeperTile> neighbors = new ArrayList<>();
-        neighbors.add(getTile(x - 1, y - 1));
-        neighbors.add(getTile(x - 0, y - 1));
-        neighbors.add(getTile(x + 1, y - 1));
-        neighbors.add(getTile(x - 1, y - 0));
-        neighbors.add(getTile(x + 1, y - 0));
-        neighbors.add(getTile(x - 1, y + 1));
-        neighbors.add(getTile(x - 0, y + 1));
-        neighbors.add(getTile(x + 1, y + 1));
-        return neighbors.stream().filter(tile -> tile != null).toList();
-    }
-
-    private MinesweeperTile getTile(int x, int y) {
-        if (x < 0 || x >= this.width) {
-            return null;
+    public void toggleMark(int x, int y) {
+        Objects.checkIndex(x, this.width);
+        Objects.checkIndex(y, this.height);
+        int index = y * this.width + x;
+        if (this.status != MinesweeperStatus.PLAYING || this.revealed[index]) {
+            return;
+        }
+        MinesweeperButtonMark mark = MARKS[this.marks[index]];
+        if (mark == MinesweeperButtonMark.FLAG) {
+            this.flagsQuantity--;
+        } else if (mark == MinesweeperButtonMark.NONE) {
+            this.flagsQuantity++;
+        }
+        this.marks[index] = (byte) mark.next().ordinal();
+    }
+
+    public boolean isMine(int x, int y) {
+        return this.mines[y * this.width + x];
+    }
+
+    public boolean isRevealed(int x, int y) {
+        return this.revealed[y * this.width + x];
+    }
+
+    public int getValue(int x, int y) {
+        return this.counts[y * this.width + x];
+    }
+
+    public MinesweeperButtonMark getMark(int x, int y) {
+        return MARKS[this.marks[y * this.width + x]];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMinesQuantity() {
+        return minesQuantity;
+    }
+
+    public int getFlagsQuantity() {
+        return flagsQuantity;
+    }
+
+    public int getRevealedQuantity() {
+        return revealedQuantity;
+    }
+
+    public MinesweeperStatus getStatus() {
+        return status;
+    }
+
+    private void open(int index) {
+        if (this.marks[index] == MinesweeperButtonMark.FLAG.ordinal()) {
+            this.flagsQuantity--;
+        }
+        this.marks[index] = (byte) MinesweeperButtonMark.NONE.ordinal();
+        this.revealed[index] = true;
+        if (!this.mines[index]) {
+            this.revealedQuantity++;
+        }
+    }
+
+    // Partial Fisher-Yates: only the first positions of the permutation are drawn, and the array stays a valid
+    // permutation for the next game, so sampling costs O(mines) random draws
+    private void generate(int safeIndex) {
+        boolean safeArea = safeIndex >= 0 && this.width * this.height - this.minesQuantity >= 9;
+        int placed = 0;
+        for (int position = 0; placed < this.minesQuantity; position++) {
+            int other = position + this.random.nextInt(this.cells.length - position);
+            int cell = this.cells[other];
+            this.cells[other] = this.cells[position];
+            this.cells[position] = cell;
+            if (cell == safeIndex || (safeArea && this.isNeighbor(cell, safeIndex))) {
+                continue;
+            }
+            this.mines[cell] = true;
+            placed++;
+        }
+        // Visiting the mines in row order keeps the count updates close together in memory
+        for (int cell = 0; cell < this.mines.length; cell++) {
+            if (this.mines[cell]) {
+                this.incrementNeighbors(cell);
+            }
+        }
+        this.generated = true;
+    }
+
+    private boolean isNeighbor(int cell, int other) {
+        return Math.abs(cell % this.width - other % this.width) <= 1 && Math.abs(cell / this.width - other / this.width) <= 1;
+    }
+
+    private void incrementNeighbors(int cell) {
+        int x = cell % this.width;
+        int fromOffset = x > 0 ? -1 : 0;
+        int toOffset = x < this.width - 1 ? 1 : 0;
+        for (int row = cell - this.width; row <= cell + this.width; row += this.width) {
+            if (row < 0 || row >= this.counts.length) {
+                continue;
+            }
+            for (int offset = fromOffset; offset <= toOffset; offset++) {
+                this.counts[row + offset]++;
+            }
+        }
+        this.counts[cell]--;
+    }
+}
+
+public enum MinesweeperStatus {
+    PLAYING,
+    WON,
+    LOST
+}
+
+public class MinesweeperSolver {
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+    private static final int MAX_CACHED_COMPONENTS = 4096;
+    private static final long MAX_SEARCH_NODES = 1L << 22;
+    private static final long MAX_COMPONENT_WAYS = 1L << 20;
+
+    private MinesweeperBoard board;
+    private int width;
+    private int height;
+    private byte[] knowledge;
+    private double[] probabilities;
+    private int[] worklist;
+    private boolean[] queued;
+    private boolean[] solvedFrontier;
+    private int[] parents;
+    private double[] logFactorials;
+    private int[][] neighborOffsets = new int[16][];
+    private Map<MinesweeperComponentKey, MinesweeperComponentSolution> cache = new HashMap<>();
+
+    public MinesweeperSolver(MinesweeperBoard board) {
+        this.board = Objects.requireNonNull(board);
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        int cells = this.width * this.height;
+        this.knowledge = new byte[cells];
+        this.probabilities = new double[cells];
+        this.worklist = new int[cells];
+        this.queued = new boolean[cells];
+        this.solvedFrontier = new boolean[cells];
+        this.parents = new int[cells];
+        this.logFactorials = new double[cells + 1];
+        for (int value = 1; value <= cells; value++) {
+            this.logFactorials[value] = this.logFactorials[value - 1] + Math.log(value);
+        }
+        // One table per combination of touched edges (left 1, right 2, top 4, bottom 8), so 1-wide boards work too
+        for (int edges = 0; edges < this.neighborOffsets.length; edges++) {
+            int[] offsets = new int[8];
+            int size = 0;
+            for (int dy = (edges & 4) != 0 ? 0 : -1; dy <= ((edges & 8) != 0 ? 0 : 1); dy++) {
+                for (int dx = (edges & 1) != 0 ? 0 : -1; dx <= ((edges & 2) != 0 ? 0 : 1); dx++) {
+                    if (dx != 0 || dy != 0) {
+                        offsets[size++] = dy * this.width + dx;
+                    }
+                }
+            }
+            this.neighborOffsets[edges] = Arrays.copyOf(offsets, size);
+        }
+    }
+
+    public MinesweeperBoard getBoard() {
+        return board;
+    }
+
+    // Mine probability of every cell, indexed by y * width + x; revealed cells are 0
+    public double[] solve() {
+        int cells = this.width * this.height;
+        for (int cell = 0; cell < cells; cell++) {
+            this.knowledge[cell] = this.board.isRevealed(cell % this.width, cell / this.width) ? SAFE : UNKNOWN;
+        }
+        this.deduce();
+
+        // Unknown cells next to a revealed number form the frontier; numbers sharing a cell join its component
+        int knownMines = 0;
+        int interiorCells = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            this.parents[cell] = cell;
+        }
+        List<Integer> frontier = new ArrayList<>();
+        for (int cell = 0; cell < cells; cell++) {
+            if (this.knowledge[cell] == MINE) {
+                knownMines++;
+            } else if (this.knowledge[cell] == UNKNOWN) {
+                if (this.isFrontier(cell)) {
+                    frontier.add(cell);
+                } else {
+                    interiorCells++;
+                }
+            }
+        }
+        for (int constraint = 0; constraint < cells; constraint++) {
+            if (this.isConstraint(constraint)) {
+                int first = -1;
+                for (int neighborOffset : this.getNeighborOffsets(constraint)) {
+                    int neighbor = constraint + neighborOffset;
+                    if (this.knowledge[neighbor] == UNKNOWN) {
+                        if (first < 0) {
+                            first = neighbor;
+                        } else {
+                            this.union(first, neighbor);
+                        }
+                    }
+                }
+            }
+        }
+        Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+        for (int cell : frontier) {
+            components.computeIfAbsent(this.find(cell), root -> new ArrayList<>()).add(cell);
+        }
+
+        List<int[]> solvedCells = new ArrayList<>();
+        List<MinesweeperComponentSolution> solutions = new ArrayList<>();
+        for (List<Integer> component : components.values()) {
+            int[] componentCells = component.stream().mapToInt(Integer::intValue).toArray();
+            MinesweeperComponentSolution solution = this.solveComponent(componentCells);
+            if (solution == null) {
+                interiorCells += componentCells.length;
+                continue;
+            }
+            solvedCells.add(componentCells);
+            solutions.add(solution);
+        }
+        this.combine(solvedCells, solutions, this.board.getMinesQuantity() - knownMines, interiorCells);
+        return this.probabilities;
+    }
+
+    // A cell known to be safe if there is one, otherwise the least likely mine; the first move opens the centre
+    public int findMove() {
+        if (this.board.getRevealedQuantity() == 0) {
+            return (this.height / 2) * this.width + this.width / 2;
+        }
+        double[] probabilities = this.solve();
+        int best = -1;
+        for (int cell = 0; cell < probabilities.length; cell++) {
+            if (this.knowledge[cell] == MINE || this.board.isRevealed(cell % this.width, cell / this.width)) {
+                continue;
+            }
+            if (best < 0 || probabilities[cell] < probabilities[best]) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Plays until the game ends, opening every cell proven safe before solving again
+    public MinesweeperStatus play() {
+        while (this.board.getStatus() == MinesweeperStatus.PLAYING) {
+            int move = this.findMove();
+            if (this.board.getRevealedQuantity() == 0 || this.probabilities[move] > 0) {
+                this.board.reveal(move % this.width, move / this.width);
+                continue;
+            }
+            for (int cell = 0; cell < this.probabilities.length; cell++) {
+                if (this.knowledge[cell] != MINE && this.probabilities[cell] == 0 && !this.board.isRevealed(cell % this.width, cell / this.width)) {
+                    this.board.reveal(cell % this.width, cell / this.width);
+                }
+            }
+        }
+        return this.board.getStatus();
+    }
+
+    // Single-cell rules: a number whose mines are all found clears its other neighbours, one with as many unknown
+    // neighbours as missing mines flags them all
+    private void deduce() {
+        int size = 0;
+        for (int cell = 0; cell < this.knowledge.length; cell++) {
+            this.queued[cell] = this.isConstraint(cell);
+            if (this.queued[cell]) {
+                this.worklist[size++] = cell;
+            }
+        }
+        while (size > 0) {
+            int constraint = this.worklist[--size];
+            this.queued[constraint] = false;
+            int unknown = 0;
+            int mines = 0;
+            for (int neighborOffset : this.getNeighborOffsets(constraint)) {
+                int neighbor = constraint + neighborOffset;
+                unknown += this.knowledge[neighbor] == UNKNOWN ? 1 : 0;
+                mines += this.knowledge[neighbor] == MINE ? 1 : 0;
+            }
+            int missing = this.getValue(constraint) - mines;
+            if (unknown == 0 || (missing != 0 && missing != unknown)) {
+                continue;
+            }
+            byte state = missing == 0 ? SAFE : MINE;
+            for (int neighborOffset : this.getNeighborOffsets(constraint)) {
+                int neighbor = constraint + neighborOffset;
+                if (this.knowledge[neighbor] != UNKNOWN) {
+                    continue;
+                }
+                this.knowledge[neighbor] = state;
+                for (int affectedOffset : this.getNeighborOffsets(neighbor)) {
+                    int affected = neighbor + affectedOffset;
+                    if (!this.queued[affected] && this.isConstraint(affected)) {
+                        this.queued[affected] = true;
+                        this.worklist[size++] = affected;
+                    }
+                }
+            }
+        }
+    }
+
+    private MinesweeperComponentSolution solveComponent(int[] cells) {
+        Arrays.sort(cells);
+        Map<Integer, Integer> localCells = new HashMap<>();
+        for (int local = 0; local < cells.length; local++) {
+            localCells.put(cells[local], local);
+        }
+        Set<Integer> constraintSet = new LinkedHashSet<>();
+        for (int cell : cells) {
+            for (int neighborOffset : this.getNeighborOffsets(cell)) {
+                int neighbor = cell + neighborOffset;
+                if (this.isConstraint(neighbor)) {
+                    constraintSet.add(neighbor);
+                }
+            }
+        }
+        List<Integer> constraints = new ArrayList<>(constraintSet);
+        Collections.sort(constraints);
+
+        int[] key = Arrays.copyOf(cells, cells.length + constraints.size() * 2);
+        int[] needs = new int[constraints.size()];
+        int[][] cellConstraints = new int[cells.length][];
+        List<List<Integer>> cellConstraintLists = new ArrayList<>();
+        for (int local = 0; local < cells.length; local++) {
+            cellConstraintLists.add(new ArrayList<>());
+        }
+        int[] frees = new int[constraints.size()];
+        for (int index = 0; index < constraints.size(); index++) {
+            int constraint = constraints.get(index);
+            int mines = 0;
+            for (int neighborOffset : this.getNeighborOffsets(constraint)) {
+                int neighbor = constraint + neighborOffset;
+                if (this.knowledge[neighbor] == MINE) {
+                    mines++;
+                } else if (this.knowledge[neighbor] == UNKNOWN) {
+                    cellConstraintLists.get(localCells.get(neighbor)).add(index);
+                    frees[index]++;
+                }
+            }
+            needs[index] = this.getValue(constraint) - mines;
+            key[cells.length + index * 2] = constraint;
+            key[cells.length + index * 2 + 1] = needs[index];
         }
-        if (y < 0 || y >= this.height) {
+        // Every frontier cell touches a number, so a component never holds more mines than its numbers still need;
+        // components whose per-cell counts would not fit the budget are left to the interior estimate
+        int maxMines = Math.min(cells.length, Arrays.stream(needs).sum());
+        if ((long) (maxMines + 1) * cells.length > MAX_COMPONENT_WAYS) {
             return null;
         }
-        return this.field[x][y];
+        MinesweeperComponentKey componentKey = new MinesweeperComponentKey(key);
+        if (this.cache.containsKey(componentKey)) {
+            return this.cache.get(componentKey);
+        }
+        for (int local = 0; local < cells.length; local++) {
+            cellConstraints[local] = cellConstraintLists.get(local).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        MinesweeperComponentSearch search = new MinesweeperComponentSearch(this.orderCells(cellConstraints, constraints.size()), cellConstraints, needs, frees, maxMines);
+        MinesweeperComponentSolution solution = search.run() ? search.getSolution() : null;
+        if (this.cache.size() >= MAX_CACHED_COMPONENTS) {
+            this.cache.clear();
+        }
+        this.cache.put(componentKey, solution);
+        return solution;
+    }
+
+    // Breadth-first order through shared numbers, so constraints are completed early and prune the search
+    private int[] orderCells(int[][] cellConstraints, int constraintsQuantity) {
+        List<List<Integer>> constraintCells = new ArrayList<>();
+        for (int constraint = 0; constraint < constraintsQuantity; constraint++) {
+            constraintCells.add(new ArrayList<>());
+        }
+        for (int local = 0; local < cellConstraints.length; local++) {
+            for (int constraint : cellConstraints[local]) {
+                constraintCells.get(constraint).add(local);
+            }
+        }
+        int[] order = new int[cellConstraints.length];
+        boolean[] visited = new boolean[cellConstraints.length];
+        int head = 0;
+        int tail = 0;
+        order[tail++] = 0;
+        visited[0] = true;
+        while (head < tail) {
+            int local = order[head++];
+            for (int constraint : cellConstraints[local]) {
+                for (int other : constraintCells.get(constraint)) {
+                    if (!visited[other]) {
+                        visited[other] = true;
+                        order[tail++] = other;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    // Components are independent given their mine counts, so the board-wide weight of a component count is the
+    // convolution of the other components times the ways to place the remaining mines in the interior
+    private void combine(List<int[]> componentCells, List<MinesweeperComponentSolution> solutions, int remainingMines, int interiorCells) {
+        int components = solutions.size();
+        double[][] prefixes = new double[components + 1][];
+        double[][] suffixes = new double[components + 1][];
+        prefixes[0] = new double[] {1};
+        suffixes[components] = new double[] {1};
+        for (int component = 0; component < components; component++) {
+            prefixes[component + 1] = convolve(prefixes[component], solutions.get(component).ways());
+        }
+        for (int component = components - 1; component >= 0; component--) {
+            suffixes[component] = convolve(solutions.get(component).ways(), suffixes[component + 1]);
+        }
+        double[] interiorWeights = this.interiorWeights(prefixes[components].length, remainingMines, interiorCells);
+
+        Arrays.fill(this.probabilities, 0);
+        Arrays.fill(this.solvedFrontier, false);
+        for (int component = 0; component < components; component++) {
+            double[] others = convolve(prefixes[component], suffixes[component + 1]);
+            double[] ways = solutions.get(component).ways();
+            double[] cellWays = solutions.get(component).cellWays();
+            int[] cells = componentCells.get(component);
+            double[] weights = new double[ways.length];
+            double total = 0;
+            for (int mines = 0; mines < ways.length; mines++) {
+                for (int otherMines = 0; otherMines < others.length; otherMines++) {
+                    weights[mines] += others[otherMines] * interiorWeights[mines + otherMines];
+                }
+                total += ways[mines] * weights[mines];
+            }
+            for (int local = 0; local < cells.length; local++) {
+                double probability = 0;
+                for (int mines = 0; mines < ways.length; mines++) {
+                    probability += cellWays[mines * cells.length + local] * weights[mines];
+                }
+                this.probabilities[cells[local]] = total == 0 ? 0 : probability / total;
+                this.solvedFrontier[cells[local]] = true;
+            }
+        }
+
+        double[] all = prefixes[components];
+        double expectedInteriorMines = 0;
+        double total = 0;
+        for (int mines = 0; mines < all.length; mines++) {
+            total += all[mines] * interiorWeights[mines];
+            expectedInteriorMines += all[mines] * interiorWeights[mines] * (remainingMines - mines);
+        }
+        double interiorProbability = interiorCells == 0 || total == 0 ? 0 : expectedInteriorMines / total / interiorCells;
+        for (int cell = 0; cell < this.probabilities.length; cell++) {
+            if (this.knowledge[cell] == MINE) {
+                this.probabilities[cell] = 1;
+            } else if (this.knowledge[cell] == UNKNOWN && !this.solvedFrontier[cell]) {
+                this.probabilities[cell] = interiorProbability;
+            }
+        }
+    }
+
+    // C(interiorCells, remainingMines - frontierMines) for every frontier mine count, scaled to avoid overflow
+    private double[] interiorWeights(int length, int remainingMines, int interiorCells) {
+        double[] logWeights = new double[length];
+        double maxLogWeight = Double.NEGATIVE_INFINITY;
+        for (int mines = 0; mines < length; mines++) {
+            int interiorMines = remainingMines - mines;
+            logWeights[mines] = interiorMines < 0 || interiorMines > interiorCells ? Double.NEGATIVE_INFINITY
+                    : this.logFactorials[interiorCells] - this.logFactorials[interiorMines] - this.logFactorials[interiorCells - interiorMines];
+            maxLogWeight = Math.max(maxLogWeight, logWeights[mines]);
+        }
+        double[] weights = new double[length];
+        for (int mines = 0; mines < length; mines++) {
+            weights[mines] = maxLogWeight == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeights[mines] - maxLogWeight);
+        }
+        return weights;
+    }
+
+    private static double[] convolve(double[] first, double[] second) {
+        double[] result = new double[first.length + second.length - 1];
+        double max = 0;
+        for (int i = 0; i < first.length; i++) {
+            for (int j = 0; j < second.length; j++) {
+                result[i + j] += first[i] * second[j];
+            }
+        }
+        for (double value : result) {
+            max = Math.max(max, value);
+        }
+        for (int index = 0; max > 0 && index < result.length; index++) {
+            result[index] /= max;
+        }
+        return result;
+    }
+
+    private boolean isFrontier(int cell) {
+        for (int neighborOffset : this.getNeighborOffsets(cell)) {
+            int neighbor = cell + neighborOffset;
+            if (this.isConstraint(neighbor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isConstraint(int cell) {
+        if (this.knowledge[cell] != SAFE || !this.board.isRevealed(cell % this.width, cell / this.width)) {
+            return false;
+        }
+        for (int neighborOffset : this.getNeighborOffsets(cell)) {
+            int neighbor = cell + neighborOffset;
+            if (this.knowledge[neighbor] == UNKNOWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getValue(int cell) {
+        return this.board.getValue(cell % this.width, cell / this.width);
+    }
+
+    // Offsets of the cells around a cell, from the table of its edge case: no allocation on the hot scans
+    private int[] getNeighborOffsets(int cell) {
+        int x = cell % this.width;
+        int y = cell / this.width;
+        return this.neighborOffsets[(x == 0 ? 1 : 0) | (x == this.width - 1 ? 2 : 0) | (y == 0 ? 4 : 0) | (y == this.height - 1 ? 8 : 0)];
+    }
+
+    private int find(int cell) {
+        while (this.parents[cell] != cell) {
+            this.parents[cell] = this.parents[this.parents[cell]];
+            cell = this.parents[cell];
+        }
+        return cell;
+    }
+
+    private void union(int first, int second) {
+        this.parents[this.find(first)] = this.find(second);
+    }
+}
+
+public record MinesweeperComponentKey(int[] values) {
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MinesweeperComponentKey key && Arrays.equals(this.values, key.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+}
+
+// ways[m] counts the assignments with m mines, cellWays[m * cells + i] those among them with a mine on cell i
+public record MinesweeperComponentSolution(double[] ways, double[] cellWays) {}
+
+public static class MinesweeperComponentSearch {
+    private int[] order;
+    private int[][] cellConstraints;
+    private int[] needs;
+    private int[] frees;
+    private boolean[] assignment;
+    private int mines = 0;
+    private long nodes = 0;
+    private double[] ways;
+    private double[] cellWays;
+
+    public MinesweeperComponentSearch(int[] order, int[][] cellConstraints, int[] needs, int[] frees, int maxMines) {
+        this.order = order;
+        this.cellConstraints = cellConstraints;
+        this.needs = needs;
+        this.frees = frees;
+        this.assignment = new boolean[order.length];
+        this.ways = new double[maxMines + 1];
+        this.cellWays = new double[(maxMines + 1) * order.length];
+    }
+
+    public boolean run() {
+        return this.search(0);
+    }
+
+    public MinesweeperComponentSolution getSolution() {
+        return new MinesweeperComponentSolution(this.ways, this.cellWays);
+    }
+
+    private boolean search(int position) {
+        if (++this.nodes > MinesweeperSolver.MAX_SEARCH_NODES) {
+            return false;
+        }
+        if (position == this.order.length) {
+            this.ways[this.mines]++;
+            for (int local = 0; local < this.assignment.length; local++) {
+                if (this.assignment[local]) {
+                    this.cellWays[this.mines * this.assignment.length + local]++;
+                }
+            }
+            return true;
+        }
+        int cell = this.order[position];
+        for (int mine = 0; mine <= 1; mine++) {
+            if (this.assign(cell, mine == 1)) {
+                if (!this.search(position + 1)) {
+                    return false;
+                }
+            }
+            this.unassign(cell, mine == 1);
+        }
+        return true;
+    }
+
+    // A number stays satisfiable while the mines it still needs fit in its unassigned neighbours
+    private boolean assign(int cell, boolean mine) {
+        this.assignment[cell] = mine;
+        this.mines += mine ? 1 : 0;
+        boolean valid = true;
+        for (int constraint : this.cellConstraints[cell]) {
+            this.frees[constraint]--;
+            this.needs[constraint] -= mine ? 1 : 0;
+            valid &= this.needs[constraint] >= 0 && this.needs[constraint] <= this.frees[constraint];
+        }
+        return valid;
+    }
+
+    private void unassign(int cell, boolean mine) {
+        this.assignment[cell] = false;
+        this.mines -= mine ? 1 : 0;
+        for (int constraint : this.cellConstraints[cell]) {
+            this.frees[constraint]++;
+            this.needs[constraint] += mine ? 1 : 0;
+        }
+    }
+}
+
+public enum MinesweeperDifficulty {
+    BEGINNER(9, 9, 10),
+    INTERMEDIATE(16, 16, 40),
+    EXPERT(30, 16, 99);
+
+    private int width;
+    private int height;
+    private int minesQuantity;
+
+    MinesweeperDifficulty(int width, int height, int minesQuantity) {
+        this.width = width;
+        this.height = height;
+        this.minesQuantity = minesQuantity;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMinesQuantity() {
+        return minesQuantity;
+    }
+}
+
+public class MinesweeperBenchmark {
+    public void run(int games) {
+        for (MinesweeperDifficulty difficulty : MinesweeperDifficulty.values()) {
+            LongAdder wins = new LongAdder();
+            LongAdder nanos = new LongAdder();
+            ThreadLocal<MinesweeperSolver> solvers = ThreadLocal.withInitial(() -> {
+                MinesweeperBoard board = new MinesweeperBoard(difficulty.getWidth(), difficulty.getHeight(), difficulty.getMinesQuantity(), new SplittableRandom());
+                board.setFirstClickSafe(true);
+                return new MinesweeperSolver(board);
+            });
+            long start = System.nanoTime();
+            IntStream.range(0, games).parallel().forEach(game -> {
+                MinesweeperSolver solver = solvers.get();
+                solver.getBoard().reset();
+                long gameStart = System.nanoTime();
+                if (solver.play() == MinesweeperStatus.WON) {
+                    wins.increment();
+                }
+                nanos.add(System.nanoTime() - gameStart);
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            IO.println(String.format("%s: win rate %.2f%% | %.1f us/game | %.0f games/sec",
+                    difficulty, 100.0 * wins.sum() / games, nanos.sum() / 1e3 / games, games / seconds));
+        }
     }
+}
 
-    private int countMineTiles(List<MinesweeperTile> tiles) {
-        return (int) tiles.stream().filter(MinesweeperTile::isMine).count();
+public class MinesweeperFrame extends JFrame {
+    private static final String TITLE = "Minesweeper (Mines: %s / Flags: %s)";
+    private static final int TILE_SIZE = 45;
+    private static final int MIN_TILE_SIZE = 16;
+    private static final int MAX_SIZE = 900;
+
+    private MinesweeperBoard board;
+    private MinesweeperBoardComponent boardComponent;
+    private MinesweeperSolver solver;
+
+    public MinesweeperFrame(int width, int height, int minesQuantity) {
+        this.board = new MinesweeperBoard(width, height, minesQuantity);
+        this.board.setFirstClickSafe(true);
+        this.solver = new MinesweeperSolver(this.board);
+        int tileSize = Math.clamp(MAX_SIZE / Math.max(width, height), MIN_TILE_SIZE, TILE_SIZE);
+        this.boardComponent = new MinesweeperBoardComponent(this.board, tileSize);
+        this.boardComponent.addMouseListener(new BoardMouseListener());
+        JScrollPane scrollPane = new JScrollPane(this.boardComponent);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(tileSize);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(tileSize);
+        this.add(scrollPane);
+        this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        this.setResizable(false);
+        this.pack();
+        this.setSize(Math.min(this.getWidth(), MAX_SIZE + TILE_SIZE), Math.min(this.getHeight(), MAX_SIZE + TILE_SIZE));
+        this.setLocationRelativeTo(null);
+        this.refreshTitle();
+        this.setVisible(true);
     }
 
-    private boolean checkVictory() {
-        return this.visitedTilesQuantity == (this.tilesQuantity - this.minesQuantity);
+    private void refreshTitle() {
+        this.setTitle(String.format(TITLE, this.board.getMinesQuantity(), this.board.getFlagsQuantity()));
     }
 
-    private void processLeftClick(MinesweeperTile tile) {
-        if (tile.isVisited()) {
+    private void processLeftClick(int x, int y) {
+        if (this.board.getMark(x, y) != MinesweeperButtonMark.NONE) {
             return;
         }
-        tile.visit();
-        if (tile.isMine()) {
+        MinesweeperStatus status = this.board.reveal(x, y);
+        this.boardComponent.setHint(-1);
+        this.boardComponent.repaint();
+        if (status == MinesweeperStatus.LOST) {
             JOptionPane.showMessageDialog(this, "BOOM!");
             this.reset();
-            return;
-        }
-        if (tile.getValue() == 0) {
-            getNeighbors(tile.getFieldX(), tile.getFieldY()).stream().forEach(x -> processLeftClick(x));
-        }
-        this.visitedTilesQuantity++;
-        if (checkVictory()) {
+        } else if (status == MinesweeperStatus.WON) {
             JOptionPane.showMessageDialog(this, "Victory!!!");
             this.reset();
         }
     }
 
-    private void processRightClick(MinesweeperTile button) {
-        if (button.isVisited()) {
-            return;
-        }
-        if (button.getMark() == MinesweeperButtonMark.FLAG) {
-            this.flagsQuantity--;
-        } else if(button.getMark() == MinesweeperButtonMark.NONE) {
-            this.flagsQuantity++;
+    private void processRightClick(int x, int y) {
+        this.board.toggleMark(x, y);
+        this.boardComponent.repaint();
+        this.refreshTitle();
+    }
+
+    private void processMiddleClick() {
+        if (this.board.getStatus() == MinesweeperStatus.PLAYING) {
+            this.boardComponent.setHint(this.solver.findMove());
+            this.boardComponent.repaint();
         }
-        button.toggleMark();
+    }
+
+    private void reset() {
+        this.board.reset();
+        this.boardComponent.setHint(-1);
+        this.boardComponent.repaint();
         this.refreshTitle();
     }
 
-    private class ButtonMouseListener extends MouseAdapter {
+    private class BoardMouseListener extends MouseAdapter {
         @Override
         public void mouseReleased(MouseEvent e) {
-            MinesweeperTile tile = (MinesweeperTile) e.getComponent();
+            int x = e.getX() / boardComponent.getTileSize();
+            int y = e.getY() / boardComponent.getTileSize();
+            if (x >= board.getWidth() || y >= board.getHeight()) {
+                return;
+            }
             if (e.getButton() == MouseEvent.BUTTON1) {
-                if (tile.getMark() != MinesweeperButtonMark.NONE) {
-                    return;
-                }
-                processLeftClick(tile);
+                processLeftClick(x, y);
+            } else if (e.getButton() == MouseEvent.BUTTON2) {
+                processMiddleClick();
             } else {
-                processRightClick(tile);
+                processRightClick(x, y);
             }
         }
     }
 }
 
-public class MinesweeperTile extends JButton {
-    private static final float FONT_SIZE = 18f;
+public class MinesweeperBoardComponent extends JComponent {
+    private static final float FONT_SIZE_RATIO = 0.4f;
     private static final int FONT_STYLE = Font.BOLD;
     private static final String UNKNOWN_TEXT = "?";
-    private static final ImageIcon FLAG_ICON;
-    private static final ImageIcon BOMB_ICON;
+    private static final Color HIDDEN_COLOR = new Color(200, 200, 200);
+    private static final Color REVEALED_COLOR = new Color(230, 230, 230);
+    private static final Color GRID_COLOR = new Color(160, 160, 160);
+    private static final Color HINT_COLOR = new Color(0, 160, 0);
+    private static final Image FLAG_IMAGE;
+    private static final Image BOMB_IMAGE;
     private static final Color[] COLORS = new Color[] {
             new Color(000, 000, 000),
             new Color(000, 000, 255),
@@ -183,115 +931,90 @@ public class MinesweeperTile extends JButton {
     };
 
     static {
-        FLAG_ICON = new ImageIcon(MinesweeperTile.class.getResource("/gui/flag_green.png"));
-        BOMB_ICON = new ImageIcon(MinesweeperTile.class.getResource("/gui/bomb.png"));
-    }
-
-    private int x;
-    private int y;
-    private MinesweeperButtonMark mark = MinesweeperButtonMark.NONE;
-    private boolean visited = false;
-    private int value = 0;
-    private boolean mine;
-
-    public MinesweeperTile(int x, int y) {
-        this.x = x;
-        this.y = y;
-        this.setMargin(new Insets(0, 0, 0, 0));
-        this.setFont(this.getFont().deriveFont(FONT_STYLE, FONT_SIZE));
-        this.setUI(new MetalButtonUI() {
-            protected Color getDisabledTextColor() {
-                return COLORS[getValue()];
-            }
-        });
-    }
-
-    public void reset() {
-        this.setValue(0);
-        this.setMine(false);
-        this.setText("");
-        this.setBackground(null);
-        this.setIcon(null);
-        this.setVisited(false);
-        this.mark = MinesweeperButtonMark.NONE;
-        this.setEnabled(true);
+        FLAG_IMAGE = new ImageIcon(MinesweeperBoardComponent.class.getResource("/gui/flag_green.png")).getImage();
+        BOMB_IMAGE = new ImageIcon(MinesweeperBoardComponent.class.getResource("/gui/bomb.png")).getImage();
     }
 
-    public int getFieldX() {
-        return x;
-    }
-
-    public int getFieldY() {
-        return y;
-    }
-
-    public void setMine(boolean mine) {
-        this.mine = mine;
-    }
-
-    public boolean isMine() {
-        return mine;
-    }
-
-    public void setVisited(boolean visited) {
-        this.visited = visited;
-    }
+    private MinesweeperBoard board;
+    private int tileSize;
+    private int hint = -1;
 
-    public boolean isVisited() {
-        return visited;
+    public MinesweeperBoardComponent(MinesweeperBoard board, int tileSize) {
+        this.board = board;
+        this.tileSize = tileSize;
+        this.setPreferredSize(new Dimension(board.getWidth() * tileSize, board.getHeight() * tileSize));
+        this.setFont(UIManager.getFont("Button.font").deriveFont(FONT_STYLE, tileSize * FONT_SIZE_RATIO));
     }
 
-    public MinesweeperButtonMark getMark() {
-        return mark;
+    public int getTileSize() {
+        return tileSize;
     }
 
-    public int getValue() {
-        return value;
+    // Cell suggested by the solver, as y * width + x, or -1 for none
+    public void setHint(int hint) {
+        this.hint = hint;
     }
 
-    public void setValue(int value) {
-        this.value = value;
+    // Only the tiles inside the clip are painted, so the cost of a repaint depends on the viewport, not the board
+    @Override
+    public void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds(new Rectangle(this.getPreferredSize()));
+        int fromX = Math.max(clip.x / this.tileSize, 0);
+        int fromY = Math.max(clip.y / this.tileSize, 0);
+        int toX = Math.min((clip.x + clip.width) / this.tileSize + 1, this.board.getWidth());
+        int toY = Math.min((clip.y + clip.height) / this.tileSize + 1, this.board.getHeight());
+        FontMetrics metrics = g.getFontMetrics();
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++) {
+                this.paintTile(g, metrics, x, y);
+            }
+        }
     }
 
-    public void visit() {
-        this.mark = MinesweeperButtonMark.NONE;
-        this.setIcon(null);
-        if (this.isMine()) {
-            this.setIcon(this.BOMB_ICON);
-            this.setBackground(Color.RED);
+    private void paintTile(Graphics g, FontMetrics metrics, int x, int y) {
+        int left = x * this.tileSize;
+        int top = y * this.tileSize;
+        if (!this.board.isRevealed(x, y)) {
+            g.setColor(HIDDEN_COLOR);
+            g.fill3DRect(left, top, this.tileSize, this.tileSize, true);
+            MinesweeperButtonMark mark = this.board.getMark(x, y);
+            if (mark == MinesweeperButtonMark.FLAG) {
+                g.drawImage(FLAG_IMAGE, left, top, this.tileSize, this.tileSize, null);
+            } else if (mark == MinesweeperButtonMark.UNKNOWN) {
+                this.paintText(g, metrics, UNKNOWN_TEXT, Color.BLACK, left, top);
+            }
+            if (this.hint == y * this.board.getWidth() + x) {
+                g.setColor(HINT_COLOR);
+                g.drawRect(left + 1, top + 1, this.tileSize - 3, this.tileSize - 3);
+            }
             return;
         }
-        if (this.getValue() != 0) {
-            this.setText(String.valueOf(this.getValue()));
-        }
-        this.setEnabled(false);
-        this.setVisited(true);
-    }
-
-    public void toggleMark() {
-        switch (this.mark) {
-            case NONE:
-                this.mark = MinesweeperButtonMark.FLAG;
-                this.setText("");
-                this.setIcon(FLAG_ICON);
-                break;
-            case FLAG:
-                this.mark = MinesweeperButtonMark.UNKNOWN;
-                this.setIcon(null);
-                this.setText(UNKNOWN_TEXT);
-                break;
-            case UNKNOWN:
-                this.mark = MinesweeperButtonMark.NONE;
-                this.setText("");
-                break;
-        }
-        this.repaint();
-        this.revalidate();
+        g.setColor(this.board.isMine(x, y) ? Color.RED : REVEALED_COLOR);
+        g.fillRect(left, top, this.tileSize, this.tileSize);
+        g.setColor(GRID_COLOR);
+        g.drawRect(left, top, this.tileSize - 1, this.tileSize - 1);
+        if (this.board.isMine(x, y)) {
+            g.drawImage(BOMB_IMAGE, left, top, this.tileSize, this.tileSize, null);
+        } else if (this.board.getValue(x, y) != 0) {
+            int value = this.board.getValue(x, y);
+            this.paintText(g, metrics, String.valueOf(value), COLORS[value], left, top);
+        }
+    }
+
+    private void paintText(Graphics g, FontMetrics metrics, String text, Color color, int left, int top) {
+        g.setColor(color);
+        int textX = left + (this.tileSize - metrics.stringWidth(text)) / 2;
+        int textY = top + (this.tileSize - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.drawString(text, textX, textY);
     }
 }
 
 public enum MinesweeperButtonMark {
     NONE,
     FLAG,
-    UNKNOWN
+    UNKNOWN;
+
+    public MinesweeperButtonMark next() {
+        return values()[(this.ordinal() + 1) % values().length];
+    }
 }
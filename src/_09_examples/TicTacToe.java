@@ -2,35 +2,50 @@ package _09_examples;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
 
 public class TicTacToe {
+    private static final long TOURNAMENT_GAMES = 1_000_000;
+
     public static void main(String[] args) {
+        if (GraphicsEnvironment.isHeadless()) {
+            runTournament(() -> new TicTacToeRandomStrategy(new SplittableRandom()), () -> new TicTacToeRandomStrategy(new SplittableRandom()), "Random vs Random");
+            runTournament(() -> new TicTacToeEngineStrategy(), () -> new TicTacToeRandomStrategy(new SplittableRandom()), "Engine vs Random");
+            runTournament(() -> new TicTacToeRandomStrategy(new SplittableRandom()), () -> new TicTacToeEngineStrategy(), "Random vs Engine");
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             new TicTacToeFrame(false);
         });
     }
+
+    private static void runTournament(Supplier<TicTacToeStrategy> playerX, Supplier<TicTacToeStrategy> playerO, String name) {
+        TicTacToeTournament tournament = new TicTacToeTournament(TicTacToeBoard::new, playerX, playerO);
+        TicTacToeTournamentResult result = tournament.run(TOURNAMENT_GAMES);
+        System.out.println(String.format("%s: X %.2f%% | O %.2f%% | Draw %.2f%% | %.0f games/sec",
+                name, result.getPercentage(result.xWins()), result.getPercentage(result.oWins()),
+                result.getPercentage(result.draws()), result.getGamesPerSecond()));
+    }
 }
 
 class TicTacToeFrame extends JFrame {
     private final String TITLE = "Tic Tac Toe! (Current Player: %s)";
     private final int BUTTON_QUANTITY = 9;
-    private final int[][] VICTORY_SEQUENCES = new int[][] {
-            {0, 1, 2},
-            {3, 4, 5},
-            {6, 7, 8},
-            {0, 3, 6},
-            {1, 4, 7},
-            {2, 5, 8},
-            {0, 4, 8},
-            {2, 4, 6},
-    };
+    private final Duration ENGINE_BUDGET = Duration.ofMillis(500);
 
     private TicTacToePlayer currentPlayer = TicTacToePlayer.X;
     private TicTacToeButton[] buttons = new TicTacToeButton[BUTTON_QUANTITY];
+    private TicTacToeBoard board = new TicTacToeBoard();
+    private TicTacToeStrategy opponent = new TicTacToeEngineStrategy(ENGINE_BUDGET);
     private boolean pvp = false;
 
     public TicTacToeFrame(boolean pvp) {
@@ -54,19 +69,22 @@ class TicTacToeFrame extends JFrame {
         for (int i = 0; i < buttons.length; i++) {
             buttons[i].reset();
         }
+        board.reset();
     }
 
     private void buildButtons() {
         for (int i = 0; i < buttons.length; i++) {
+            int cell = i;
             TicTacToeButton button = new TicTacToeButton();
-            button.addActionListener(evt -> handleButtonClick(button));
+            button.addActionListener(evt -> handleButtonClick(cell));
             buttons[i] = button;
             this.add(button);
         }
     }
 
-    private void handleButtonClick(TicTacToeButton button) {
-        button.setPlayer(this.currentPlayer);
+    private void handleButtonClick(int cell) {
+        buttons[cell].setPlayer(this.currentPlayer);
+        board.play(cell);
         if (checkVictory()) {
             processVictory();
             return;
@@ -77,7 +95,7 @@ class TicTacToeFrame extends JFrame {
         }
         swapCurrentPlayer();
         if (!this.pvp && this.currentPlayer == TicTacToePlayer.O) {
-            randomPlay();
+            opponentPlay();
         }
     }
 
@@ -87,29 +105,11 @@ class TicTacToeFrame extends JFrame {
     }
 
     private boolean checkVictory() {
-        for (int i = 0; i < VICTORY_SEQUENCES.length; i++) {
-            int[] sequence = VICTORY_SEQUENCES[i];
-            TicTacToePlayer p1 = buttons[sequence[0]].getPlayer();
-            TicTacToePlayer p2 = buttons[sequence[1]].getPlayer();
-            TicTacToePlayer p3 = buttons[sequence[2]].getPlayer();
-            if (p1 == null || p2 == null || p3 == null) {
-                continue;
-            }
-            if (p1 == p2 && p2 == p3) {
-                return true;
-            }
-        }
-        return false;
+        return board.isWinner(currentPlayer);
     }
 
     private boolean checkTicTacToe() {
-        for (int i = 0; i < buttons.length; i++) {
-            TicTacToeButton button = buttons[i];
-            if (button.getPlayer() == null) {
-                return false;
-            }
-        }
-        return true;
+        return board.isFull();
     }
 
     private void processVictory() {
@@ -131,13 +131,9 @@ class TicTacToeFrame extends JFrame {
         this.reset();
     }
 
-    private void randomPlay() {
+    private void opponentPlay() {
         this.setEnabled(false);
-        List<TicTacToeButton> remainingButtons = Arrays.stream(this.buttons)
-                .filter(TicTacToeButton::isFree)
-                .collect(Collectors.toList());
-        Collections.shuffle(remainingButtons);
-        remainingButtons.stream().findFirst().ifPresent(x -> x.doClick());
+        buttons[opponent.selectMove(board)].doClick();
         this.setEnabled(true);
     }
 }
@@ -166,8 +162,758 @@ class TicTacToeButton extends JButton {
     }
 
     public boolean isFree() {
-        return this.player != null;
+        return this.player == null;
+    }
+}
+
+class TicTacToeBoard {
+    private static final int DEFAULT_SIZE = 3;
+    private static final int SMALL_BOARD_CELLS = 25;
+
+    private TicTacToeLayout layout;
+    private long[] masks;
+    private long[] hashes;
+    private int movesQuantity = 0;
+
+    public TicTacToeBoard() {
+        this(DEFAULT_SIZE, DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    public TicTacToeBoard(int width, int height, int length) {
+        this(new TicTacToeLayout(width, height, length));
+    }
+
+    private TicTacToeBoard(TicTacToeLayout layout) {
+        this.layout = layout;
+        this.masks = new long[layout.getWords() * 2];
+        this.hashes = new long[layout.getSymmetries().length];
+    }
+
+    public TicTacToeBoard copy() {
+        TicTacToeBoard copy = new TicTacToeBoard(this.layout);
+        System.arraycopy(this.masks, 0, copy.masks, 0, this.masks.length);
+        System.arraycopy(this.hashes, 0, copy.hashes, 0, this.hashes.length);
+        copy.movesQuantity = this.movesQuantity;
+        return copy;
+    }
+
+    public void reset() {
+        Arrays.fill(this.masks, 0);
+        Arrays.fill(this.hashes, 0);
+        this.movesQuantity = 0;
+    }
+
+    public void play(int cell) {
+        if (!this.isFree(cell)) {
+            throw new IllegalArgumentException("Invalid cell: " + cell);
+        }
+        this.toggle(cell, this.movesQuantity & 1);
+        this.movesQuantity++;
+    }
+
+    public void undo(int cell) {
+        this.movesQuantity--;
+        this.toggle(cell, this.movesQuantity & 1);
+    }
+
+    public boolean isFree(int cell) {
+        Objects.checkIndex(cell, this.layout.getCells());
+        return !this.isSet(0, cell) && !this.isSet(1, cell);
+    }
+
+    public TicTacToePlayer getPlayer(int cell) {
+        Objects.checkIndex(cell, this.layout.getCells());
+        if (this.isSet(0, cell)) {
+            return TicTacToePlayer.X;
+        }
+        return this.isSet(1, cell) ? TicTacToePlayer.O : null;
+    }
+
+    public TicTacToePlayer getCurrentPlayer() {
+        return (this.movesQuantity & 1) == 0 ? TicTacToePlayer.X : TicTacToePlayer.O;
+    }
+
+    // Every line is a mask, so a win is a (player & line) == line test per line: 8 comparisons on 3x3
+    public boolean isWinner(TicTacToePlayer player) {
+        int offset = player.ordinal() * this.layout.getWords();
+        for (int line = 0; line < this.layout.getLinesQuantity(); line++) {
+            if (this.isLineComplete(offset, line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only the lines through the last move can have been completed by it
+    public boolean isWinningMove(int cell) {
+        int offset = (this.isSet(0, cell) ? 0 : 1) * this.layout.getWords();
+        for (int line : this.layout.getCellLines()[cell]) {
+            if (this.isLineComplete(offset, line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isFull() {
+        return this.movesQuantity == this.layout.getCells();
+    }
+
+    public int getMovesQuantity() {
+        return movesQuantity;
+    }
+
+    public int getWidth() {
+        return this.layout.getWidth();
+    }
+
+    public int getHeight() {
+        return this.layout.getHeight();
+    }
+
+    public int getLength() {
+        return this.layout.getLength();
+    }
+
+    public int getCells() {
+        return this.layout.getCells();
+    }
+
+    TicTacToeLayout getLayout() {
+        return layout;
+    }
+
+    // Positions equal up to a rotation or reflection share the smallest of their symmetric hashes
+    int getSymmetry() {
+        int symmetry = 0;
+        for (int index = 1; index < this.hashes.length; index++) {
+            if (this.hashes[index] < this.hashes[symmetry]) {
+                symmetry = index;
+            }
+        }
+        return symmetry;
+    }
+
+    long getHash(int symmetry) {
+        return this.hashes[symmetry];
+    }
+
+    // Sum over every k-cell window still open to one side, weighted by how filled it is, from the mover's view
+    int evaluate() {
+        int words = this.layout.getWords();
+        int own = (this.movesQuantity & 1) * words;
+        int other = words - own;
+        long[] lines = this.layout.getLines();
+        int[] weights = this.layout.getWeights();
+        int score = 0;
+        for (int line = 0; line < this.layout.getLinesQuantity(); line++) {
+            int ownCount = 0;
+            int otherCount = 0;
+            for (int word = 0; word < words; word++) {
+                long mask = lines[line * words + word];
+                ownCount += Long.bitCount(this.masks[own + word] & mask);
+                otherCount += Long.bitCount(this.masks[other + word] & mask);
+            }
+            if (otherCount == 0) {
+                score += weights[ownCount];
+            } else if (ownCount == 0) {
+                score -= weights[otherCount];
+            }
+        }
+        return score;
+    }
+
+    // Every empty cell on small boards; on large ones only cells near a stone, or the centre on an empty board
+    int getCandidates(int[] target) {
+        int cells = this.layout.getCells();
+        if (cells <= SMALL_BOARD_CELLS) {
+            int size = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (!this.isSet(0, cell) && !this.isSet(1, cell)) {
+                    target[size++] = cell;
+                }
+            }
+            return size;
+        }
+        if (this.movesQuantity == 0) {
+            target[0] = (this.layout.getHeight() / 2) * this.layout.getWidth() + this.layout.getWidth() / 2;
+            return 1;
+        }
+        int words = this.layout.getWords();
+        long[] neighborhoods = this.layout.getNeighborhoods();
+        int size = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int word = cell >>> 6;
+            long bit = 1L << cell;
+            if (((this.masks[word] | this.masks[words + word]) & bit) != 0) {
+                continue;
+            }
+            for (int index = 0; index < words; index++) {
+                if (((this.masks[index] | this.masks[words + index]) & neighborhoods[cell * words + index]) != 0) {
+                    target[size++] = cell;
+                    break;
+                }
+            }
+        }
+        return size;
+    }
+
+    private boolean isSet(int player, int cell) {
+        return (this.masks[player * this.layout.getWords() + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    private boolean isLineComplete(int offset, int line) {
+        int words = this.layout.getWords();
+        long[] lines = this.layout.getLines();
+        for (int word = 0; word < words; word++) {
+            long mask = lines[line * words + word];
+            if ((this.masks[offset + word] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void toggle(int cell, int player) {
+        this.masks[player * this.layout.getWords() + (cell >>> 6)] ^= 1L << cell;
+        int[][] symmetries = this.layout.getSymmetries();
+        long[] zobrist = this.layout.getZobrist();
+        for (int symmetry = 0; symmetry < symmetries.length; symmetry++) {
+            this.hashes[symmetry] ^= zobrist[player * this.layout.getCells() + symmetries[symmetry][cell]];
+        }
+    }
+}
+
+// Board geometry shared by every copy of a board: line masks, cell neighbourhoods, symmetries and Zobrist keys
+class TicTacToeLayout {
+    private static final int MAX_SIZE = 32;
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+
+    private int width;
+    private int height;
+    private int length;
+    private int cells;
+    private int words;
+    private long[] lines;
+    private int[][] cellLines;
+    private long[] neighborhoods;
+    private int[][] symmetries;
+    private int[][] inverses;
+    private long[] zobrist;
+    private int[] weights;
+
+    public TicTacToeLayout(int width, int height, int length) {
+        if (width < 1 || width > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid width: " + width);
+        }
+        if (height < 1 || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid height: " + height);
+        }
+        if (length < 1 || length > Math.max(width, height)) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        this.cells = width * height;
+        this.words = (this.cells + 63) >>> 6;
+        this.buildLines();
+        this.buildNeighborhoods();
+        this.buildSymmetries();
+        this.zobrist = new SplittableRandom(ZOBRIST_SEED).longs(this.cells * 2L).toArray();
+        this.weights = new int[length + 1];
+        for (int count = 1; count <= length; count++) {
+            this.weights[count] = 1 << Math.min(3 * count, 16);
+        }
+    }
+
+    private void buildLines() {
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        List<long[]> lineMasks = new ArrayList<>();
+        List<List<Integer>> linesByCell = new ArrayList<>();
+        for (int cell = 0; cell < this.cells; cell++) {
+            linesByCell.add(new ArrayList<>());
+        }
+        for (int[] direction : directions) {
+            for (int y = 0; y < this.height; y++) {
+                for (int x = 0; x < this.width; x++) {
+                    int endX = x + direction[0] * (this.length - 1);
+                    int endY = y + direction[1] * (this.length - 1);
+                    if (endX < 0 || endX >= this.width || endY < 0 || endY >= this.height) {
+                        continue;
+                    }
+                    long[] mask = new long[this.words];
+                    for (int step = 0; step < this.length; step++) {
+                        int cell = (y + direction[1] * step) * this.width + x + direction[0] * step;
+                        mask[cell >>> 6] |= 1L << cell;
+                        linesByCell.get(cell).add(lineMasks.size());
+                    }
+                    lineMasks.add(mask);
+                }
+            }
+        }
+        this.lines = new long[lineMasks.size() * this.words];
+        for (int line = 0; line < lineMasks.size(); line++) {
+            System.arraycopy(lineMasks.get(line), 0, this.lines, line * this.words, this.words);
+        }
+        this.cellLines = new int[this.cells][];
+        for (int cell = 0; cell < this.cells; cell++) {
+            this.cellLines[cell] = linesByCell.get(cell).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private void buildNeighborhoods() {
+        this.neighborhoods = new long[this.cells * this.words];
+        for (int cell = 0; cell < this.cells; cell++) {
+            int x = cell % this.width;
+            int y = cell / this.width;
+            for (int neighborY = Math.max(y - 1, 0); neighborY <= Math.min(y + 1, this.height - 1); neighborY++) {
+                for (int neighborX = Math.max(x - 1, 0); neighborX <= Math.min(x + 1, this.width - 1); neighborX++) {
+                    int neighbor = neighborY * this.width + neighborX;
+                    this.neighborhoods[cell * this.words + (neighbor >>> 6)] |= 1L << neighbor;
+                }
+            }
+        }
+    }
+
+    // Reflections and the half turn fit any rectangle; quarter turns and transpositions only a square
+    private void buildSymmetries() {
+        int quantity = this.width == this.height ? 8 : 4;
+        this.symmetries = new int[quantity][this.cells];
+        this.inverses = new int[quantity][this.cells];
+        for (int symmetry = 0; symmetry < quantity; symmetry++) {
+            for (int cell = 0; cell < this.cells; cell++) {
+                int x = cell % this.width;
+                int y = cell / this.width;
+                int mirroredX = (symmetry & 1) != 0 ? this.width - 1 - x : x;
+                int mirroredY = (symmetry & 2) != 0 ? this.height - 1 - y : y;
+                int target = (symmetry & 4) != 0 ? mirroredX * this.width + mirroredY : mirroredY * this.width + mirroredX;
+                this.symmetries[symmetry][cell] = target;
+                this.inverses[symmetry][target] = cell;
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getCells() {
+        return cells;
     }
+
+    public int getWords() {
+        return words;
+    }
+
+    public int getLinesQuantity() {
+        return lines.length / words;
+    }
+
+    public long[] getLines() {
+        return lines;
+    }
+
+    public int[][] getCellLines() {
+        return cellLines;
+    }
+
+    public long[] getNeighborhoods() {
+        return neighborhoods;
+    }
+
+    public int[][] getSymmetries() {
+        return symmetries;
+    }
+
+    public int[][] getInverses() {
+        return inverses;
+    }
+
+    public long[] getZobrist() {
+        return zobrist;
+    }
+
+    public int[] getWeights() {
+        return weights;
+    }
+}
+
+class TicTacToeEngine {
+    private static final int WIN_SCORE = 1_000_000_000;
+    private static final int MAX_PLY = 1024;
+    private static final int DEFAULT_TABLE_BITS = 20;
+    private static final int EXACT = 0;
+    private static final int LOWER_BOUND = 1;
+    private static final int UPPER_BOUND = 2;
+    private static final int MAX_TIME_CHECK_INTERVAL = 1024;
+    private static final int TIME_CHECK_WORDS = 1 << 16;
+
+    private TicTacToeLayout layout;
+    private long[] keys;
+    private long[] entries;
+    private int[][] moveBuffers = new int[0][];
+    private int timeCheckMask;
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private int lastScore;
+    private int lastDepth;
+
+    public TicTacToeEngine() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    public TicTacToeEngine(int tableBits) {
+        if (tableBits < 1 || tableBits > 30) {
+            throw new IllegalArgumentException("Invalid table bits: " + tableBits);
+        }
+        this.keys = new long[1 << tableBits];
+        this.entries = new long[1 << tableBits];
+    }
+
+    public int findMove(TicTacToeBoard board) {
+        return this.findMove(board, Duration.ofDays(1));
+    }
+
+    // Iterative deepening until the position is solved or the budget runs out; an interrupted iteration is discarded
+    public int findMove(TicTacToeBoard board, Duration budget) {
+        if (board.isFull()) {
+            throw new IllegalArgumentException("Invalid board: no free cells");
+        }
+        TicTacToeBoard position = board.copy();
+        // Zobrist keys depend only on cell indices, so entries from another geometry would collide
+        if (position.getLayout() != this.layout) {
+            this.clear();
+            this.layout = position.getLayout();
+            // A node costs about one pass over every line, so large boards read the clock more often
+            int interval = TIME_CHECK_WORDS / (this.layout.getLinesQuantity() * this.layout.getWords());
+            this.timeCheckMask = Integer.highestOneBit(Math.clamp(interval, 1, MAX_TIME_CHECK_INTERVAL)) - 1;
+        }
+        int remaining = position.getCells() - position.getMovesQuantity();
+        if (this.moveBuffers.length <= remaining) {
+            this.moveBuffers = new int[remaining + 1][position.getCells()];
+        }
+        this.deadline = System.nanoTime() + Math.min(budget.toNanos(), Long.MAX_VALUE / 4);
+        this.aborted = false;
+        this.nodes = 0;
+        int[] candidates = new int[position.getCells()];
+        position.getCandidates(candidates);
+        int bestMove = candidates[0];
+        for (int depth = 1; depth <= remaining; depth++) {
+            int[] result = this.searchRoot(position, depth);
+            if (this.aborted) {
+                break;
+            }
+            bestMove = result[0];
+            this.lastScore = result[1];
+            this.lastDepth = depth;
+            if (Math.abs(this.lastScore) > WIN_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    // Score of the last search from the mover's view: positive wins, negative loses, 0 draws or is balanced
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public boolean isWinScore(int score) {
+        return score > WIN_SCORE - MAX_PLY;
+    }
+
+    public boolean isLossScore(int score) {
+        return score < -WIN_SCORE + MAX_PLY;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        Arrays.fill(this.entries, 0);
+    }
+
+    private int[] searchRoot(TicTacToeBoard board, int depth) {
+        int[] moves = this.moveBuffers[depth];
+        int size = this.orderMoves(board, moves, this.probeMove(board));
+        int alpha = -WIN_SCORE - 1;
+        int bestMove = moves[0];
+        for (int index = 0; index < size; index++) {
+            int score = this.scoreMove(board, moves[index], depth, alpha, WIN_SCORE + 1, 0);
+            if (this.aborted) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = moves[index];
+            }
+            if (index + 1 < size && System.nanoTime() > this.deadline) {
+                this.aborted = true;
+                break;
+            }
+        }
+        return new int[] {bestMove, alpha};
+    }
+
+    private int scoreMove(TicTacToeBoard board, int move, int depth, int alpha, int beta, int ply) {
+        board.play(move);
+        int score;
+        if (board.isWinningMove(move)) {
+            score = WIN_SCORE - ply - 1;
+        } else if (board.isFull()) {
+            score = 0;
+        } else {
+            score = -this.negamax(board, depth - 1, -beta, -alpha, ply + 1);
+        }
+        board.undo(move);
+        return score;
+    }
+
+    private int negamax(TicTacToeBoard board, int depth, int alpha, int beta, int ply) {
+        if ((++this.nodes & this.timeCheckMask) == 0 && System.nanoTime() > this.deadline) {
+            this.aborted = true;
+        }
+        if (this.aborted) {
+            return 0;
+        }
+        if (depth == 0) {
+            return board.evaluate();
+        }
+        int symmetry = board.getSymmetry();
+        long key = board.getHash(symmetry);
+        int slot = (int) key & (this.keys.length - 1);
+        int ttMove = -1;
+        if (this.keys[slot] == key && this.entries[slot] != 0) {
+            long entry = this.entries[slot];
+            ttMove = board.getLayout().getInverses()[symmetry][(int) (entry >>> 48)];
+            int score = this.fromTable((int) entry, ply);
+            int flag = (int) (entry >>> 32) & 3;
+            if (((entry >>> 34) & 0x3FFF) >= depth) {
+                if (flag == EXACT || (flag == LOWER_BOUND && score >= beta) || (flag == UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] moves = this.moveBuffers[depth];
+        int size = this.orderMoves(board, moves, ttMove);
+        int bestScore = -WIN_SCORE - 1;
+        int bestMove = moves[0];
+        for (int index = 0; index < size; index++) {
+            int score = this.scoreMove(board, moves[index], depth, alpha, beta, ply);
+            if (this.aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[index];
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = bestScore <= originalAlpha ? UPPER_BOUND : bestScore >= beta ? LOWER_BOUND : EXACT;
+        long storedMove = board.getLayout().getSymmetries()[symmetry][bestMove];
+        this.keys[slot] = key;
+        this.entries[slot] = storedMove << 48 | (long) depth << 34 | (long) flag << 32 | (this.toTable(bestScore, ply) & 0xFFFFFFFFL);
+        return bestScore;
+    }
+
+    // Transposition-table move first, then candidates from the centre outwards (insertion sort, lists are short)
+    private int orderMoves(TicTacToeBoard board, int[] moves, int firstMove) {
+        int size = board.getCandidates(moves);
+        for (int index = 1; index < size; index++) {
+            int move = moves[index];
+            int priority = this.getPriority(board, move, firstMove);
+            int position = index;
+            while (position > 0 && this.getPriority(board, moves[position - 1], firstMove) > priority) {
+                moves[position] = moves[position - 1];
+                position--;
+            }
+            moves[position] = move;
+        }
+        return size;
+    }
+
+    private int getPriority(TicTacToeBoard board, int cell, int firstMove) {
+        if (cell == firstMove) {
+            return -1;
+        }
+        int width = board.getWidth();
+        return Math.max(Math.abs(cell % width - width / 2), Math.abs(cell / width - board.getHeight() / 2));
+    }
+
+    private int probeMove(TicTacToeBoard board) {
+        int symmetry = board.getSymmetry();
+        long key = board.getHash(symmetry);
+        int slot = (int) key & (this.keys.length - 1);
+        if (this.keys[slot] != key || this.entries[slot] == 0) {
+            return -1;
+        }
+        return board.getLayout().getInverses()[symmetry][(int) (this.entries[slot] >>> 48)];
+    }
+
+    // Win scores count plies from the root, so they are stored relative to the node and rebased when read
+    private int toTable(int score, int ply) {
+        if (score > WIN_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        return score < -WIN_SCORE + MAX_PLY ? score - ply : score;
+    }
+
+    private int fromTable(int score, int ply) {
+        if (score > WIN_SCORE - MAX_PLY) {
+            return score - ply;
+        }
+        return score < -WIN_SCORE + MAX_PLY ? score + ply : score;
+    }
+}
+
+interface TicTacToeStrategy {
+    // Returns a free cell of the board for its current player; the board must be left as it was given
+    int selectMove(TicTacToeBoard board);
+}
+
+class TicTacToeRandomStrategy implements TicTacToeStrategy {
+    private RandomGenerator random;
+    private int[] freeCells = new int[0];
+
+    public TicTacToeRandomStrategy(RandomGenerator random) {
+        this.random = Objects.requireNonNull(random);
+    }
+
+    @Override
+    public int selectMove(TicTacToeBoard board) {
+        if (this.freeCells.length < board.getCells()) {
+            this.freeCells = new int[board.getCells()];
+        }
+        int size = 0;
+        for (int cell = 0; cell < board.getCells(); cell++) {
+            if (board.isFree(cell)) {
+                this.freeCells[size++] = cell;
+            }
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException("Invalid board: no free cells");
+        }
+        return this.freeCells[this.random.nextInt(size)];
+    }
+}
+
+// The engine keeps a transposition table, so an instance must not be shared between threads
+class TicTacToeEngineStrategy implements TicTacToeStrategy {
+    private TicTacToeEngine engine = new TicTacToeEngine();
+    private Duration budget;
+
+    public TicTacToeEngineStrategy() {
+        this(Duration.ofDays(1));
+    }
+
+    public TicTacToeEngineStrategy(Duration budget) {
+        this.budget = Objects.requireNonNull(budget);
+    }
+
+    @Override
+    public int selectMove(TicTacToeBoard board) {
+        return this.engine.findMove(board, this.budget);
+    }
+}
+
+class TicTacToeGame {
+    private TicTacToeStrategy playerX;
+    private TicTacToeStrategy playerO;
+
+    public TicTacToeGame(TicTacToeStrategy playerX, TicTacToeStrategy playerO) {
+        this.playerX = Objects.requireNonNull(playerX);
+        this.playerO = Objects.requireNonNull(playerO);
+    }
+
+    // Plays a whole game on the board from an empty position, without any Swing component
+    public TicTacToeResult play(TicTacToeBoard board) {
+        board.reset();
+        while (!board.isFull()) {
+            TicTacToePlayer player = board.getCurrentPlayer();
+            int cell = (player == TicTacToePlayer.X ? this.playerX : this.playerO).selectMove(board);
+            board.play(cell);
+            if (board.isWinningMove(cell)) {
+                return player == TicTacToePlayer.X ? TicTacToeResult.X_WON : TicTacToeResult.O_WON;
+            }
+        }
+        return TicTacToeResult.DRAW;
+    }
+}
+
+class TicTacToeTournament {
+    private ThreadLocal<TicTacToeBoard> boards;
+    private ThreadLocal<TicTacToeGame> games;
+
+    // Strategies and boards hold mutable state, so every worker thread builds its own from the factories
+    public TicTacToeTournament(Supplier<TicTacToeBoard> boardFactory, Supplier<TicTacToeStrategy> playerX, Supplier<TicTacToeStrategy> playerO) {
+        Objects.requireNonNull(boardFactory);
+        Objects.requireNonNull(playerX);
+        Objects.requireNonNull(playerO);
+        this.boards = ThreadLocal.withInitial(boardFactory);
+        this.games = ThreadLocal.withInitial(() -> new TicTacToeGame(playerX.get(), playerO.get()));
+    }
+
+    // Games run on the common ForkJoin pool; the counters are LongAdders so workers never contend on one cache line
+    public TicTacToeTournamentResult run(long gamesQuantity) {
+        if (gamesQuantity < 1) {
+            throw new IllegalArgumentException("Invalid games quantity: " + gamesQuantity);
+        }
+        LongAdder xWins = new LongAdder();
+        LongAdder oWins = new LongAdder();
+        LongAdder draws = new LongAdder();
+        long start = System.nanoTime();
+        LongStream.range(0, gamesQuantity).parallel().forEach(index -> {
+            switch (this.games.get().play(this.boards.get())) {
+                case X_WON -> xWins.increment();
+                case O_WON -> oWins.increment();
+                case DRAW -> draws.increment();
+            }
+        });
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new TicTacToeTournamentResult(xWins.sum(), oWins.sum(), draws.sum(), elapsed);
+    }
+}
+
+record TicTacToeTournamentResult(long xWins, long oWins, long draws, Duration elapsed) {
+    public long getGamesQuantity() {
+        return xWins + oWins + draws;
+    }
+
+    public double getPercentage(long results) {
+        return 100.0 * results / this.getGamesQuantity();
+    }
+
+    public double getGamesPerSecond() {
+        return this.getGamesQuantity() / (elapsed.toNanos() / 1e9);
+    }
+}
+
+enum TicTacToeResult {
+    X_WON,
+    O_WON,
+    DRAW
 }
 
 enum TicTacToePlayer {